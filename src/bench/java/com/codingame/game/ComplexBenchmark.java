@@ -0,0 +1,59 @@
+package com.codingame.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the {@link Complex} primitives, next to their {@link Geometry} kernels.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ComplexBenchmark {
+    private Complex mouse = new Complex(123.4, -234.5);
+    private Complex cat = new Complex(300.0, 400.0);
+    private Complex origin = new Complex(0, 0);
+    private double angle = 0.03;
+
+    @Benchmark
+    public double module() {
+        return mouse.module();
+    }
+
+    @Benchmark
+    public double angleRad() {
+        return Complex.angleRad(mouse, origin, cat);
+    }
+
+    @Benchmark
+    public Complex reduceToNorm1() {
+        return mouse.reduceToNorm1();
+    }
+
+    @Benchmark
+    public Complex rotate() {
+        return cat.rotate(angle);
+    }
+
+    @Benchmark
+    public double geometryModule() {
+        return Geometry.module(mouse.getRe(), mouse.getIm());
+    }
+
+    @Benchmark
+    public double geometryAngleBetween() {
+        return Geometry.angleBetween(mouse.getRe(), mouse.getIm(), cat.getRe(), cat.getIm());
+    }
+}
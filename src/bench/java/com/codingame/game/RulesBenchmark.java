@@ -0,0 +1,111 @@
+package com.codingame.game;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the rules: the escape solve, the cat pursuit, a search step, a full game and a
+ * batch turn of {@link BatchEnvironment}.
+ * Run with <code>-prof gc</code> to get the allocation rate next to the scores.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RulesBenchmark {
+    private static final TestCase TEST_CASE = new TestCase(120, -80, 2.5, 30);
+    /** Radius of the circle the scripted mouse runs along, small enough to never escape. */
+    private static final int SCRIPT_RADIUS = 200;
+
+    private final EscapeSimulator simulator = new EscapeSimulator();
+    private final GameState state = simulator.newGame(TEST_CASE);
+
+    @State(Scope.Thread)
+    public static class Game {
+        GameState state;
+
+        @Setup(Level.Invocation)
+        public void newGame() {
+            state = new EscapeSimulator().newGame(TEST_CASE);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Batch {
+        static final int GAMES = 4096;
+        final BatchEnvironment environment = new BatchEnvironment(GAMES, MathMode.FAST);
+        final double[] targetX = new double[GAMES];
+        final double[] targetY = new double[GAMES];
+
+        @Setup(Level.Iteration)
+        public void newGames() {
+            environment.reset(Collections.nCopies(GAMES, TEST_CASE));
+            for (int i = 0; i < GAMES; i++) {
+                double angle = 2 * Math.PI * i / GAMES;
+                targetX[i] = (int) (SCRIPT_RADIUS * Math.cos(angle));
+                targetY[i] = (int) (SCRIPT_RADIUS * Math.sin(angle));
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean escapeSolve() {
+        return Geometry.crossesCircle(state.getMouseX(), state.getMouseY(), 7.0, -7.0, EscapeSimulator.RADIUS_POOL);
+    }
+
+    @Benchmark
+    public double catPursuit() {
+        simulator.moveCat(state);
+        return state.getCatAngle();
+    }
+
+    @Benchmark
+    public Outcome snapshotStepRestore() {
+        GameState snapshot = state.snapshot();
+        Outcome outcome = simulator.step(state, 0, 0);
+        state.restore(snapshot);
+        return outcome;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public Outcome fullGame(Game game) {
+        GameState state = game.state;
+        Outcome outcome = Outcome.RUNNING;
+        for (int turn = 0; turn < EscapeSimulator.MAX_TURNS && outcome == Outcome.RUNNING; turn++) {
+            double angle = turn * 0.05;
+            outcome = simulator.step(state, (int) (SCRIPT_RADIUS * Math.cos(angle)), (int) (SCRIPT_RADIUS * Math.sin(angle)));
+        }
+        return outcome;
+    }
+
+    /** One turn of {@link Batch#GAMES} games; games running out of turns are restarted in place. */
+    @Benchmark
+    @OperationsPerInvocation(Batch.GAMES)
+    public int batchStep(Batch batch) {
+        BatchEnvironment environment = batch.environment;
+        int running = environment.step(batch.targetX, batch.targetY);
+        boolean[] done = environment.getDone();
+        for (int i = 0; i < Batch.GAMES; i++) {
+            if (done[i]) {
+                environment.reset(i, TEST_CASE);
+            }
+        }
+        return running;
+    }
+}
@@ -0,0 +1,32 @@
+package com.codingame.game;
+
+/**
+ * The referee's cat: it runs toward the rim point closest to the mouse.
+ * In {@link MathMode#STRICT} it is bit-identical to the original referee.
+ */
+public class AnalyticCatPolicy implements CatPolicy {
+    private final MathMode mathMode;
+
+    public AnalyticCatPolicy(MathMode mathMode) {
+        this.mathMode = mathMode;
+    }
+
+    public MathMode getMathMode() {
+        return mathMode;
+    }
+
+    @Override
+    public double pursuitAngle(GameState state) {
+        if (mathMode == MathMode.FAST) {
+            return TurnGeometry.pursuitAngle(mathMode, state.getMouseX(), state.getMouseY(),
+                    state.getCatX(), state.getCatY(), EscapeSimulator.RADIUS_POOL);
+        }
+        return EscapeSimulator.pursuitAngle(state.getMouseX(), state.getMouseY(),
+                state.getCatX(), state.getCatY(), state.getCatAngle());
+    }
+
+    @Override
+    public String identity() {
+        return "analytic " + mathMode;
+    }
+}
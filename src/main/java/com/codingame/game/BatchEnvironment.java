@@ -0,0 +1,261 @@
+package com.codingame.game;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Many games advanced together, for reinforcement learning and evolutionary tuning.
+ * Gym style: {@link #reset(List)} starts one game per test case, then every {@link #step}
+ * plays one turn of every running game and fills the observations, rewards and done flags.
+ *
+ * The games are held as struct of arrays, one primitive array per field, and a turn is split
+ * in passes over all games: mouse step, escape test, mouse commit, cat pursuit. The arithmetic
+ * passes are straight loops without calls so the JIT can unroll and vectorize them.
+ * Every game follows exactly the same rounding as {@link EscapeSimulator}, in both math modes.
+ * Nothing is allocated after construction; the returned arrays are reused by the next step.
+ */
+public class BatchEnvironment {
+    /** Values per game in {@link #getObservations()}: mouseX, mouseY, catX, catY. */
+    public static final int OBSERVATION_SIZE = 4;
+    public static final double ESCAPE_REWARD = 1;
+    public static final double LOSS_REWARD = -1;
+
+    private static final int RADIUS = EscapeSimulator.RADIUS_POOL;
+    private static final int SPEED = EscapeSimulator.MOUSE_SPEED;
+    private static final byte RUNNING = (byte) Outcome.RUNNING.ordinal();
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    private final MathMode mathMode;
+    private final int capacity;
+    private int size;
+
+    private final double[] mouseX;
+    private final double[] mouseY;
+    private final double[] catX;
+    private final double[] catY;
+    private final double[] catAngle;
+    private final double[] maxAngle;
+    private final int[] turn;
+    private final byte[] outcome;
+
+    // per turn scratch
+    private final double[] stepX;
+    private final double[] stepY;
+    private final boolean[] crossing;
+
+    private final double[] observations;
+    private final double[] rewards;
+    private final boolean[] done;
+
+    public BatchEnvironment(int capacity, MathMode mathMode) {
+        this.capacity = capacity;
+        this.mathMode = mathMode;
+        mouseX = new double[capacity];
+        mouseY = new double[capacity];
+        catX = new double[capacity];
+        catY = new double[capacity];
+        catAngle = new double[capacity];
+        maxAngle = new double[capacity];
+        turn = new int[capacity];
+        outcome = new byte[capacity];
+        stepX = new double[capacity];
+        stepY = new double[capacity];
+        crossing = new boolean[capacity];
+        observations = new double[capacity * OBSERVATION_SIZE];
+        rewards = new double[capacity];
+        done = new boolean[capacity];
+    }
+
+    public MathMode getMathMode() {
+        return mathMode;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /** Number of games since the last {@link #reset(List)}. */
+    public int size() {
+        return size;
+    }
+
+    /** Starts one game per test case, in order.
+     * @return the first observations
+     */
+    public double[] reset(List<TestCase> configs) {
+        if (configs.size() > capacity) {
+            throw new IllegalArgumentException(configs.size() + " games for a capacity of " + capacity);
+        }
+        size = configs.size();
+        for (int i = 0; i < size; i++) {
+            resetGame(i, configs.get(i));
+        }
+        Arrays.fill(rewards, 0, size, 0);
+        observe();
+        return observations;
+    }
+
+    /** Restarts a single game, typically one that is done, leaving the others running. */
+    public void reset(int game, TestCase config) {
+        if (game >= size) {
+            throw new IndexOutOfBoundsException("Game " + game + " of " + size);
+        }
+        resetGame(game, config);
+        rewards[game] = 0;
+        observe(game);
+    }
+
+    private void resetGame(int i, TestCase config) {
+        mouseX[i] = config.getMouseX();
+        mouseY[i] = config.getMouseY();
+        catAngle[i] = config.getCatAngle();
+        updateCatPosition(i);
+        maxAngle[i] = (double) config.getCatSpeed() / (double) RADIUS;
+        turn[i] = 0;
+        outcome[i] = RUNNING;
+        done[i] = false;
+    }
+
+    /** Plays one turn of every running game; games already done are left untouched.
+     * Integer targets give exactly the games the referee plays.
+     * @param targetX x of the point each mouse runs to, indexed by game
+     * @param targetY y of the point each mouse runs to, indexed by game
+     * @return the number of games still running
+     */
+    public int step(double[] targetX, double[] targetY) {
+        int n = size;
+        moveMice(targetX, targetY, n);
+        int running = 0;
+        for (int i = 0; i < n; i++) {
+            rewards[i] = 0;
+            if (done[i]) {
+                continue;
+            }
+            Outcome result = Outcome.RUNNING;
+            if (crossing[i]) {
+                boolean escaped = Geometry.dist(mouseX[i], mouseY[i], catX[i], catY[i]) > EscapeSimulator.CAT_RADIUS;
+                result = escaped ? Outcome.ESCAPED : Outcome.CAUGHT;
+            }
+            else {
+                mouseX[i] += stepX[i];
+                mouseY[i] += stepY[i];
+            }
+            // like EscapeSimulator.step, the cat still runs on the deciding turn
+            moveCat(i);
+            if (++turn[i] >= EscapeSimulator.MAX_TURNS && result == Outcome.RUNNING) {
+                result = Outcome.OUT_OF_TURNS;
+            }
+            if (result == Outcome.RUNNING) {
+                running++;
+            }
+            else {
+                finish(i, result);
+            }
+        }
+        observe();
+        return running;
+    }
+
+    /** Mouse step clamped to the mouse speed and escape test, for all games at once. */
+    private void moveMice(double[] targetX, double[] targetY, int n) {
+        for (int i = 0; i < n; i++) {
+            double diffX = targetX[i] - mouseX[i];
+            double diffY = targetY[i] - mouseY[i];
+            double module = Math.sqrt(diffX * diffX + diffY * diffY);
+            double factor = module / (module * module);
+            boolean clamp = module > SPEED;
+            stepX[i] = clamp ? diffX * factor * SPEED : diffX;
+            stepY[i] = clamp ? diffY * factor * SPEED : diffY;
+        }
+        if (mathMode == MathMode.FAST) {
+            for (int i = 0; i < n; i++) {
+                double t = TurnGeometry.firstCrossing(mouseX[i], mouseY[i], stepX[i], stepY[i], RADIUS);
+                crossing[i] = t == t;
+            }
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            // Geometry.crossesCircle unrolled: a negative delta gives NaN roots that compare false
+            double px = mouseX[i];
+            double py = mouseY[i];
+            double dx = stepX[i];
+            double dy = stepY[i];
+            double a = dx * dx + dy * dy;
+            double b = 2 * px * dx + 2 * py * dy;
+            double c = px * px + py * py - RADIUS * RADIUS;
+            double root = Math.sqrt(b * b - 4 * a * c);
+            double tOne = (-b + root) / (2 * a);
+            double tTwo = (-b - root) / (2 * a);
+            crossing[i] = (tOne > 0 && tOne <= 1) || (tTwo > 0 && tTwo <= 1);
+        }
+    }
+
+    private void moveCat(int i) {
+        double angle = 0;
+        if (!Geometry.isZero(mouseX[i], mouseY[i])) {
+            if (mathMode == MathMode.FAST) {
+                angle = TurnGeometry.pursuitAngle(mathMode, mouseX[i], mouseY[i], catX[i], catY[i], RADIUS);
+            }
+            else {
+                angle = EscapeSimulator.pursuitAngle(mouseX[i], mouseY[i], catX[i], catY[i], catAngle[i]);
+            }
+        }
+        double limit = maxAngle[i];
+        catAngle[i] -= angle >= 0 ? Math.min(limit, angle) : Math.max(-limit, angle);
+        updateCatPosition(i);
+    }
+
+    private void updateCatPosition(int i) {
+        if (mathMode == MathMode.FAST) {
+            catX[i] = FastTrig.cos(catAngle[i]) * RADIUS;
+            catY[i] = FastTrig.sin(catAngle[i]) * RADIUS;
+        }
+        else {
+            catX[i] = Math.cos(catAngle[i]) * RADIUS;
+            catY[i] = Math.sin(catAngle[i]) * RADIUS;
+        }
+    }
+
+    private void finish(int i, Outcome result) {
+        outcome[i] = (byte) result.ordinal();
+        done[i] = true;
+        rewards[i] = result == Outcome.ESCAPED ? ESCAPE_REWARD : LOSS_REWARD;
+    }
+
+    private void observe() {
+        for (int i = 0; i < size; i++) {
+            observe(i);
+        }
+    }
+
+    private void observe(int i) {
+        int o = i * OBSERVATION_SIZE;
+        observations[o] = mouseX[i];
+        observations[o + 1] = mouseY[i];
+        observations[o + 2] = catX[i];
+        observations[o + 3] = catY[i];
+    }
+
+    /** mouseX, mouseY, catX, catY of every game, {@link #OBSERVATION_SIZE} values per game. */
+    public double[] getObservations() {
+        return observations;
+    }
+
+    /** Reward of the last step: {@link #ESCAPE_REWARD} on escape, {@link #LOSS_REWARD} on any loss, 0 otherwise. */
+    public double[] getRewards() {
+        return rewards;
+    }
+
+    public boolean[] getDone() {
+        return done;
+    }
+
+    public Outcome getOutcome(int game) {
+        return OUTCOMES[outcome[game]];
+    }
+
+    /** Turns played by the game, the deciding turn included. */
+    public int getTurns(int game) {
+        return turn[game];
+    }
+}
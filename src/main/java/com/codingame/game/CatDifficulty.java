@@ -0,0 +1,37 @@
+package com.codingame.game;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Cat policies offered as difficulty levels.
+ */
+public enum CatDifficulty {
+    /** lagging cat, half as fast as its speed */
+    EASY,
+    /** the referee's cat */
+    NORMAL,
+    /** predictive cat, running to where the mouse is heading */
+    HARD;
+
+    public CatPolicy policy(MathMode mathMode) {
+        switch (this) {
+            case EASY:
+                return new LaggingCatPolicy(new AnalyticCatPolicy(mathMode), 0.5);
+            case HARD:
+                return new PredictiveCatPolicy(mathMode);
+            default:
+                return new AnalyticCatPolicy(mathMode);
+        }
+    }
+
+    /** Policy named on a command line or in a property: a difficulty, case insensitive, or
+     * "table:FILE" for a {@link TableCatPolicy}.
+     */
+    public static CatPolicy parse(String name, MathMode mathMode) throws IOException {
+        if (name.startsWith("table:")) {
+            return new TableCatPolicy(Paths.get(name.substring("table:".length())));
+        }
+        return valueOf(name.toUpperCase()).policy(mathMode);
+    }
+}
@@ -0,0 +1,188 @@
+package com.codingame.game;
+
+/**
+ * Cats of a multi-cat game, each with its own speed, kept sorted by their angle on the rim.
+ * {@link #nearest(double)} is a binary search. After {@link #pursue} moves every cat, the order
+ * around the circle is almost unchanged: cats only run a few degrees per turn and rarely pass
+ * each other. The arrays are rotated to start at the smallest angle again, which absorbs the cats
+ * crossing angle 0, then an insertion sort swaps the few cats that passed a neighbour. A turn
+ * is thus linear in the number of cats.
+ * Angles are in [0, 2 PI), counterclockwise from the x axis, like the single cat's angle modulo 2 PI.
+ */
+public class CatPack {
+    private static final double TWO_PI = 2 * Math.PI;
+
+    private final int size;
+    private final double[] angles;
+    private final double[] maxAngles;
+    private final int[] speeds;
+    private final int[] ids;
+    private final double[] scratchAngles;
+    private final double[] scratchMaxAngles;
+    private final int[] scratchSpeeds;
+    private final int[] scratchIds;
+
+    /**
+     * @param catAngles initial angle of each cat, any value, taken modulo 2 PI
+     * @param catSpeeds speed of each cat in pixels per turn
+     */
+    public CatPack(double[] catAngles, int[] catSpeeds) {
+        if (catAngles.length != catSpeeds.length || catAngles.length == 0) {
+            throw new IllegalArgumentException("Need as many speeds as angles, and at least one cat");
+        }
+        size = catAngles.length;
+        angles = new double[size];
+        maxAngles = new double[size];
+        speeds = new int[size];
+        ids = new int[size];
+        scratchAngles = new double[size];
+        scratchMaxAngles = new double[size];
+        scratchSpeeds = new int[size];
+        scratchIds = new int[size];
+        for (int i = 0; i < size; i++) {
+            angles[i] = normalize(catAngles[i]);
+            speeds[i] = catSpeeds[i];
+            maxAngles[i] = (double) catSpeeds[i] / (double) EscapeSimulator.RADIUS_POOL;
+            ids[i] = i;
+        }
+        sort();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Angle of the cat at the given rank, ranks going counterclockwise from angle 0. */
+    public double getAngle(int rank) {
+        return angles[rank];
+    }
+
+    public int getSpeed(int rank) {
+        return speeds[rank];
+    }
+
+    /** Index of the cat in the arrays given to the constructor. */
+    public int getId(int rank) {
+        return ids[rank];
+    }
+
+    public double getX(int rank) {
+        return Math.cos(angles[rank]) * EscapeSimulator.RADIUS_POOL;
+    }
+
+    public double getY(int rank) {
+        return Math.sin(angles[rank]) * EscapeSimulator.RADIUS_POOL;
+    }
+
+    /** Rank of the cat closest to the given angle along the rim, hence closest to any point in that direction. */
+    public int nearest(double angle) {
+        double target = normalize(angle);
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (angles[middle] < target) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        // the two neighbours of the insertion point, wrapping around 2 PI
+        int after = low == size ? 0 : low;
+        int before = low == 0 ? size - 1 : low - 1;
+        return arc(angles[before], target) <= arc(angles[after], target) ? before : after;
+    }
+
+    /** Runs every cat toward the rim point in the direction of the mouse, each at its own speed.
+     * A mouse on the center gives no direction, the cats then stay put.
+     */
+    public void pursue(double mouseX, double mouseY) {
+        if (Geometry.isZero(mouseX, mouseY)) {
+            return;
+        }
+        double target = normalize(Math.atan2(mouseY, mouseX));
+        int smallest = 0;
+        for (int i = 0; i < size; i++) {
+            double diff = target - angles[i];
+            if (diff > Math.PI) {
+                diff -= TWO_PI;
+            }
+            else if (diff < -Math.PI) {
+                diff += TWO_PI;
+            }
+            double limit = maxAngles[i];
+            double angle = angles[i] + Math.max(-limit, Math.min(limit, diff));
+            // a cat runs less than a full turn, one correction brings it back in [0, 2 PI)
+            if (angle < 0) {
+                angle += TWO_PI;
+            }
+            if (angle >= TWO_PI) {
+                angle -= TWO_PI;
+            }
+            angles[i] = angle;
+            if (angles[i] < angles[smallest]) {
+                smallest = i;
+            }
+        }
+        rotate(smallest);
+        sort();
+    }
+
+    /** Rotates the parallel arrays left so that the given index comes first. */
+    private void rotate(int first) {
+        if (first == 0) {
+            return;
+        }
+        int tail = size - first;
+        System.arraycopy(angles, 0, scratchAngles, 0, first);
+        System.arraycopy(maxAngles, 0, scratchMaxAngles, 0, first);
+        System.arraycopy(speeds, 0, scratchSpeeds, 0, first);
+        System.arraycopy(ids, 0, scratchIds, 0, first);
+        System.arraycopy(angles, first, angles, 0, tail);
+        System.arraycopy(maxAngles, first, maxAngles, 0, tail);
+        System.arraycopy(speeds, first, speeds, 0, tail);
+        System.arraycopy(ids, first, ids, 0, tail);
+        System.arraycopy(scratchAngles, 0, angles, tail, first);
+        System.arraycopy(scratchMaxAngles, 0, maxAngles, tail, first);
+        System.arraycopy(scratchSpeeds, 0, speeds, tail, first);
+        System.arraycopy(scratchIds, 0, ids, tail, first);
+    }
+
+    /** Insertion sort of the parallel arrays by angle, linear on an almost sorted pack. */
+    private void sort() {
+        for (int i = 1; i < size; i++) {
+            double angle = angles[i];
+            if (angle >= angles[i - 1]) {
+                continue;
+            }
+            double maxAngle = maxAngles[i];
+            int speed = speeds[i];
+            int id = ids[i];
+            int j = i - 1;
+            while (j >= 0 && angles[j] > angle) {
+                angles[j + 1] = angles[j];
+                maxAngles[j + 1] = maxAngles[j];
+                speeds[j + 1] = speeds[j];
+                ids[j + 1] = ids[j];
+                j--;
+            }
+            angles[j + 1] = angle;
+            maxAngles[j + 1] = maxAngle;
+            speeds[j + 1] = speed;
+            ids[j + 1] = id;
+        }
+    }
+
+    /** Length of the shorter arc between two angles of [0, 2 PI). */
+    private static double arc(double a, double b) {
+        double diff = Math.abs(a - b);
+        return Math.min(diff, TWO_PI - diff);
+    }
+
+    private static double normalize(double angle) {
+        double normalized = angle - TWO_PI * Math.floor(angle / TWO_PI);
+        // rounding can give back 2 PI itself
+        return normalized < TWO_PI ? normalized : 0;
+    }
+}
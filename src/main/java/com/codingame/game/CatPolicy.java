@@ -0,0 +1,18 @@
+package com.codingame.game;
+
+/**
+ * How the cat chooses where to run. {@link EscapeSimulator} calls it once per turn, after the
+ * mouse moved, unless the mouse sits on the center, and clamps the answer to the cat's max angle.
+ * Implementations must be stateless: one policy is shared by all the games of a simulator.
+ */
+public interface CatPolicy {
+
+    /** Signed angle the cat wants to run along the rim; the cat angle decreases by it. */
+    double pursuitAngle(GameState state);
+
+    /** Stable text naming the policy and everything its decisions depend on, parameters and
+     * data included: two policies with the same identity take the same decisions. It is part of
+     * the keys of {@link ResultCache}.
+     */
+    String identity();
+}
@@ -0,0 +1,114 @@
+package com.codingame.game;
+
+import java.util.function.Supplier;
+
+/**
+ * Plays the same test case in {@link MathMode#STRICT} and {@link MathMode#FAST} side by side,
+ * each with its own agent, and reports where the two games part ways.
+ * A checker holds no game state and can be shared between threads.
+ */
+public class DivergenceChecker {
+    private final EscapeSimulator strict;
+    private final EscapeSimulator fast;
+
+    /** Compares two configurations that differ in their math mode only, e.g. with the same cat
+     * policy built for each mode.
+     */
+    public DivergenceChecker(GameConfig strict, GameConfig fast) {
+        if (strict.getMathMode() != MathMode.STRICT || fast.getMathMode() != MathMode.FAST) {
+            throw new IllegalArgumentException("Expected a STRICT and a FAST configuration, got " + strict + " and " + fast);
+        }
+        if (strict.isEarlyTermination() != fast.isEarlyTermination()) {
+            throw new IllegalArgumentException("Both configurations must agree on early termination");
+        }
+        this.strict = new EscapeSimulator(strict);
+        this.fast = new EscapeSimulator(fast);
+    }
+
+    public static class Divergence {
+        private Outcome strictOutcome;
+        private Outcome fastOutcome;
+        private int strictTurns;
+        private int fastTurns;
+        private int firstInputDivergence = -1;
+        private int firstOutcomeDivergence = -1;
+
+        public Outcome getStrictOutcome() {
+            return strictOutcome;
+        }
+
+        public Outcome getFastOutcome() {
+            return fastOutcome;
+        }
+
+        public int getStrictTurns() {
+            return strictTurns;
+        }
+
+        public int getFastTurns() {
+            return fastTurns;
+        }
+
+        /** First turn where the two agents were sent different input lines, -1 if never. */
+        public int getFirstInputDivergence() {
+            return firstInputDivergence;
+        }
+
+        /** First turn where the two games had a different outcome, -1 if never. */
+        public int getFirstOutcomeDivergence() {
+            return firstOutcomeDivergence;
+        }
+
+        public boolean isOutcomeDivergent() {
+            return firstOutcomeDivergence >= 0;
+        }
+    }
+
+    public Divergence check(TestCase testCase, Supplier<? extends MouseAgent> agents) {
+        Divergence divergence = new Divergence();
+        GameState strictState = strict.newGame(testCase);
+        GameState fastState = fast.newGame(testCase);
+        MouseAgent strictAgent = agents.get();
+        MouseAgent fastAgent = agents.get();
+        strictAgent.init(strictState.getCatSpeed());
+        fastAgent.init(fastState.getCatSpeed());
+        MouseMove strictMove = new MouseMove();
+        MouseMove fastMove = new MouseMove();
+
+        Outcome strictOutcome = Outcome.RUNNING;
+        Outcome fastOutcome = Outcome.RUNNING;
+        for (int turn = 0; turn < EscapeSimulator.MAX_TURNS; turn++) {
+            if (strictOutcome == Outcome.RUNNING && fastOutcome == Outcome.RUNNING
+                    && divergence.firstInputDivergence < 0 && !sameInput(strictState, fastState)) {
+                divergence.firstInputDivergence = turn;
+            }
+            if (strictOutcome == Outcome.RUNNING) {
+                strictOutcome = play(strict, strictState, strictAgent, strictMove);
+            }
+            if (fastOutcome == Outcome.RUNNING) {
+                fastOutcome = play(fast, fastState, fastAgent, fastMove);
+            }
+            if (divergence.firstOutcomeDivergence < 0 && strictOutcome != fastOutcome) {
+                divergence.firstOutcomeDivergence = turn;
+            }
+            if (strictOutcome != Outcome.RUNNING && fastOutcome != Outcome.RUNNING) {
+                break;
+            }
+        }
+        divergence.strictOutcome = strictOutcome == Outcome.RUNNING ? Outcome.OUT_OF_TURNS : strictOutcome;
+        divergence.fastOutcome = fastOutcome == Outcome.RUNNING ? Outcome.OUT_OF_TURNS : fastOutcome;
+        divergence.strictTurns = strictState.getTurn();
+        divergence.fastTurns = fastState.getTurn();
+        return divergence;
+    }
+
+    private static Outcome play(EscapeSimulator simulator, GameState state, MouseAgent agent, MouseMove move) {
+        agent.move(state.getMouseXInt(), state.getMouseYInt(), state.getCatXInt(), state.getCatYInt(), move);
+        return simulator.step(state, move.getTargetX(), move.getTargetY());
+    }
+
+    private static boolean sameInput(GameState a, GameState b) {
+        return a.getMouseXInt() == b.getMouseXInt() && a.getMouseYInt() == b.getMouseYInt()
+                && a.getCatXInt() == b.getCatXInt() && a.getCatYInt() == b.getCatYInt();
+    }
+}
@@ -0,0 +1,71 @@
+package com.codingame.game;
+
+/**
+ * Proves that the mouse can no longer escape, whatever the player does in the remaining turns.
+ *
+ * Two bounds are used. The rim may be too far for the turns left. Otherwise, the angle between
+ * the mouse and the cat grows by at most asin(MOUSE_SPEED / r) - maxAngle per turn at radius r,
+ * because the cat always runs toward the mouse. Bounding r by how deep the mouse can dive and
+ * still come back gives the largest gap the mouse can open before the rim. If that gap is too
+ * small to be further than CAT_RADIUS from the cat, the game is decided.
+ */
+public final class EscapeBound {
+    private static final int R = EscapeSimulator.RADIUS_POOL;
+    private static final int SPEED = EscapeSimulator.MOUSE_SPEED;
+    /** margin absorbing rounding and the fast math mode */
+    private static final double MARGIN = 1e-6;
+    /** smallest angle between the mouse and the cat allowing an escape from just inside the rim */
+    private static final double ESCAPE_GAP = Math.min(escapeGap(R - SPEED), escapeGap(R)) - MARGIN;
+    private static final double COS_ESCAPE_GAP = Math.cos(ESCAPE_GAP + MARGIN);
+
+    private EscapeBound() {
+    }
+
+    /** Angle between a mouse at the given radius and a cat on the rim, for which they are CAT_RADIUS apart. */
+    private static double escapeGap(double radius) {
+        double cat = EscapeSimulator.CAT_RADIUS;
+        return Math.acos((radius * radius + R * R - cat * cat) / (2 * radius * R));
+    }
+
+    /**
+     * @param turnsLeft turns that can still be played, the escape turn included
+     * @return why the mouse cannot escape anymore, or null when it still may
+     */
+    public static String noEscapeReason(GameState state, int turnsLeft) {
+        double mouseX = state.getMouseX();
+        double mouseY = state.getMouseY();
+        double radius = Geometry.module(mouseX, mouseY);
+        // the mouse crosses the rim from at least R - SPEED, after turnsLeft - 1 full moves at most
+        if (radius + SPEED * (turnsLeft - 1) < R - SPEED) {
+            return "No escape possible: the rim is too far for the turns left";
+        }
+        if (Geometry.isZero(mouseX, mouseY)) {
+            return null;
+        }
+        double catX = state.getCatX();
+        double catY = state.getCatY();
+        double cos = (mouseX * catX + mouseY * catY) / (radius * Geometry.module(catX, catY));
+        if (cos < COS_ESCAPE_GAP) {
+            // already far enough from the cat, by far the common case
+            return null;
+        }
+        double gap = Geometry.angleBetween(mouseX, mouseY, catX, catY);
+        double maxAngle = state.getMaxAngle();
+        // from this radius out the cat turns at least as fast as the mouse and the gap cannot grow
+        double pacedRadius = maxAngle < Math.PI / 2 ? SPEED / Math.sin(maxAngle) : SPEED;
+        int moves = turnsLeft - 1;
+        double back = (R - SPEED) - SPEED * moves;
+        // only the turns the mouse can spend below pacedRadius may widen the gap
+        int first = Math.max(0, (int) Math.floor((radius - pacedRadius) / SPEED));
+        int last = Math.min(moves - 1, (int) Math.ceil((pacedRadius - back) / SPEED));
+        for (int turn = first; turn <= last && gap <= ESCAPE_GAP; turn++) {
+            double lowest = Math.max(radius - SPEED * turn, back + SPEED * turn);
+            double mouseAngle = lowest > SPEED ? Math.asin(SPEED / lowest) : Math.PI;
+            gap += Math.max(0, mouseAngle - maxAngle);
+        }
+        if (gap <= ESCAPE_GAP) {
+            return "No escape possible: the cat cannot be outrun in the turns left";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,270 @@
+package com.codingame.game;
+
+/**
+ * Rules of the game, without any dependency on the game engine or the viewer.
+ * The referee and the offline tools all advance a {@link GameState} through {@link #step}.
+ * A turn works on primitive doubles only and allocates nothing.
+ *
+ * {@link #step} is also the forward model of search agents: together with
+ * {@link GameState#snapshot()} and {@link GameState#restore(GameState)} it lets them try moves
+ * and come back. A simulator holds no game state and its settings are an immutable
+ * {@link GameConfig}, so it can be shared between threads, each playing its own states.
+ * The cat runs as its {@link CatPolicy} decides, by default like the referee's cat.
+ */
+public class EscapeSimulator {
+    public static final int RADIUS_POOL = 500;
+    public static final int MOUSE_SPEED = 10;
+    public static final int CAT_RADIUS = 80;
+    public static final int MAX_TURNS = 350;
+    /** Version of the rules, to bump on any change that can change the result of a game; it keys the {@link ResultCache}. */
+    public static final int RULES_VERSION = 1;
+
+    private final GameConfig config;
+    private final MathMode mathMode;
+    private final boolean earlyTermination;
+    private final CatPolicy catPolicy;
+
+    public EscapeSimulator() {
+        this(GameConfig.DEFAULT);
+    }
+
+    public EscapeSimulator(MathMode mathMode) {
+        this(new GameConfig(mathMode));
+    }
+
+    /**
+     * @param earlyTermination end games with NO_ESCAPE as soon as {@link EscapeBound} proves the mouse cannot win
+     */
+    public EscapeSimulator(MathMode mathMode, boolean earlyTermination) {
+        this(new GameConfig(mathMode).withEarlyTermination(earlyTermination));
+    }
+
+    /** See {@link GameConfig#GameConfig(MathMode, boolean, CatPolicy)}. */
+    public EscapeSimulator(MathMode mathMode, boolean earlyTermination, CatPolicy catPolicy) {
+        this(new GameConfig(mathMode, earlyTermination, catPolicy));
+    }
+
+    public EscapeSimulator(GameConfig config) {
+        this.config = config;
+        // copied out of the configuration, read on every turn
+        this.mathMode = config.getMathMode();
+        this.earlyTermination = config.isEarlyTermination();
+        this.catPolicy = config.getCatPolicy();
+    }
+
+    public GameConfig getConfig() {
+        return config;
+    }
+
+    public MathMode getMathMode() {
+        return mathMode;
+    }
+
+    public boolean isEarlyTermination() {
+        return earlyTermination;
+    }
+
+    public CatPolicy getCatPolicy() {
+        return catPolicy;
+    }
+
+    public GameState newGame(TestCase testCase) {
+        GameState state = new GameState();
+        state.setMousePosition(testCase.getMouseX(), testCase.getMouseY());
+        state.setCatAngle(testCase.getCatAngle());
+        updateCatPosition(state);
+        state.setCatSpeed(testCase.getCatSpeed());
+        state.setMaxAngle((double) testCase.getCatSpeed() / (double) RADIUS_POOL);
+        state.setMouseStep(0, 0);
+        state.setTurn(0);
+        return state;
+    }
+
+    /** Rebuilds a state from what a player sees: the integer positions and the cat speed.
+     * The fractional parts are lost, so a search on this state only approximates the real game.
+     * @param turn number of turns already played
+     */
+    public GameState fromInput(int mouseX, int mouseY, int catX, int catY, int catSpeed, int turn) {
+        GameState state = new GameState();
+        state.setMousePosition(mouseX, mouseY);
+        state.setCatAngle(Math.atan2(catY, catX));
+        updateCatPosition(state);
+        state.setCatSpeed(catSpeed);
+        state.setMaxAngle((double) catSpeed / (double) RADIUS_POOL);
+        state.setTurn(turn);
+        return state;
+    }
+
+    /** Plays one turn: the mouse runs toward the target, then the cat runs along the rim.
+     * @param state game to advance
+     * @param targetX x of the point the player asked the mouse to run to
+     * @param targetY y of the point the player asked the mouse to run to
+     * @return ESCAPED or CAUGHT when the mouse reached the rim this turn, NO_ESCAPE when early
+     *     termination is on and the mouse cannot win anymore, RUNNING otherwise
+     */
+    public Outcome step(GameState state, int targetX, int targetY) {
+        return step(state, targetX, targetY, null);
+    }
+
+    /** Same as {@link #step(GameState, int, int)}, timing the mouse move, the escape solve and
+     * the cat pursuit into the current turn of the metrics.
+     * @param metrics may be null
+     */
+    public Outcome step(GameState state, int targetX, int targetY, TurnMetrics metrics) {
+        Outcome outcome = moveMouse(state, targetX, targetY, metrics);
+        long start = metrics == null ? 0 : System.nanoTime();
+        moveCat(state);
+        if (metrics != null) {
+            metrics.record(TurnMetrics.Phase.CAT_PURSUIT, start);
+        }
+        state.setTurn(state.getTurn() + 1);
+        if (earlyTermination && outcome == Outcome.RUNNING
+                && EscapeBound.noEscapeReason(state, MAX_TURNS - state.getTurn()) != null) {
+            return Outcome.NO_ESCAPE;
+        }
+        return outcome;
+    }
+
+    /** Plays a whole game against an in-process agent, until the mouse reaches the rim or
+     * {@link #MAX_TURNS} turns have been played.
+     * @return ESCAPED, CAUGHT, NO_ESCAPE or OUT_OF_TURNS; the state holds the final positions and turns used
+     */
+    public Outcome play(GameState state, MouseAgent agent) {
+        return play(state, agent, null);
+    }
+
+    /** Same as {@link #play(GameState, MouseAgent)}, calling the listener after every turn.
+     * @param listener may be null
+     */
+    public Outcome play(GameState state, MouseAgent agent, TurnListener listener) {
+        return play(state, agent, listener, null);
+    }
+
+    /** Same as {@link #play(GameState, MouseAgent, TurnListener)}, recording every turn and the game in the metrics.
+     * @param listener may be null
+     * @param metrics may be null
+     */
+    public Outcome play(GameState state, MouseAgent agent, TurnListener listener, TurnMetrics metrics) {
+        MouseMove move = new MouseMove();
+        agent.init(state.getCatSpeed());
+        Outcome outcome = Outcome.OUT_OF_TURNS;
+        while (state.getTurn() < MAX_TURNS) {
+            if (metrics != null) {
+                metrics.startTurn();
+            }
+            long start = metrics == null ? 0 : System.nanoTime();
+            agent.move(state.getMouseXInt(), state.getMouseYInt(), state.getCatXInt(), state.getCatYInt(), move);
+            if (metrics != null) {
+                metrics.record(TurnMetrics.Phase.AGENT, start);
+            }
+            Outcome turnOutcome = step(state, move.getTargetX(), move.getTargetY(), metrics);
+            if (metrics != null) {
+                metrics.endTurn(state.getTurn() - 1);
+            }
+            if (listener != null) {
+                listener.onTurn(state, move, turnOutcome);
+            }
+            if (turnOutcome != Outcome.RUNNING) {
+                outcome = turnOutcome;
+                break;
+            }
+        }
+        if (metrics != null) {
+            metrics.endGame();
+        }
+        return outcome;
+    }
+
+    Outcome moveMouse(GameState state, double targetX, double targetY, TurnMetrics metrics) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        double mouseX = state.getMouseX();
+        double mouseY = state.getMouseY();
+        double diffX = targetX - mouseX;
+        double diffY = targetY - mouseY;
+
+        double module = Geometry.module(diffX, diffY);
+        if (module > MOUSE_SPEED) {
+            double factor = Geometry.unitFactor(module);
+            diffX = diffX * factor * MOUSE_SPEED;
+            diffY = diffY * factor * MOUSE_SPEED;
+        }
+        if (metrics != null) {
+            start = metrics.record(TurnMetrics.Phase.MOUSE_MOVE, start);
+        }
+        boolean escape = mathMode == MathMode.FAST
+                ? !Double.isNaN(TurnGeometry.firstCrossing(mouseX, mouseY, diffX, diffY, RADIUS_POOL))
+                : Geometry.crossesCircle(mouseX, mouseY, diffX, diffY, RADIUS_POOL);
+        if (metrics != null) {
+            metrics.record(TurnMetrics.Phase.ESCAPE_SOLVE, start);
+        }
+        if (escape) {
+            return checkEscapeCat(state) ? Outcome.ESCAPED : Outcome.CAUGHT;
+        }
+        state.setMousePosition(mouseX + diffX, mouseY + diffY);
+        state.setMouseStep(diffX, diffY);
+        return Outcome.RUNNING;
+    }
+
+    void moveCat(GameState state) {
+        double catAngle = state.getCatAngle();
+        double maxAngle = state.getMaxAngle();
+
+        double angle = 0;
+        if (!Geometry.isZero(state.getMouseX(), state.getMouseY())) {
+            angle = catPolicy.pursuitAngle(state);
+        }
+
+        double angleDiff;
+        if (angle >= 0) {
+            angleDiff = Math.min(maxAngle, angle);
+        }
+        else {
+            angleDiff = Math.max(-maxAngle, angle);
+        }
+        state.setCatAngle(catAngle - angleDiff);
+        updateCatPosition(state);
+    }
+
+    /** Signed angle the cat wants to run, before clamping to the max angle (the cat angle decreases by it). */
+    static double pursuitAngle(double mouseX, double mouseY, double catX, double catY, double catAngle) {
+        // point of the rim the mouse is heading to when running away from the center
+        double diffX = mouseX * 10;
+        double diffY = mouseY * 10;
+        double tOne = Geometry.circleRoot(mouseX, mouseY, diffX, diffY, RADIUS_POOL, true);
+        double tTwo = Geometry.circleRoot(mouseX, mouseY, diffX, diffY, RADIUS_POOL, false);
+        double oneX = mouseX + diffX * tOne;
+        double oneY = mouseY + diffY * tOne;
+        double twoX = mouseX + diffX * tTwo;
+        double twoY = mouseY + diffY * tTwo;
+        boolean closestIsOne = Double.compare(Geometry.dist(oneX, oneY, mouseX, mouseY),
+                Geometry.dist(twoX, twoY, mouseX, mouseY)) <= 0;
+        double escapeX = closestIsOne ? oneX : twoX;
+        double escapeY = closestIsOne ? oneY : twoY;
+
+        double angle4 = Geometry.angleBetween(escapeX, escapeY, catX, catY);
+        double pos1X = Math.cos(catAngle + angle4) * RADIUS_POOL;
+        double pos1Y = Math.sin(catAngle + angle4) * RADIUS_POOL;
+        double pos2X = Math.cos(catAngle - angle4) * RADIUS_POOL;
+        double pos2Y = Math.sin(catAngle - angle4) * RADIUS_POOL;
+        // run toward whichever of the two candidate positions is closest to the escape point
+        if (Double.compare(Geometry.dist(escapeX, escapeY, pos1X, pos1Y), Geometry.dist(escapeX, escapeY, pos2X, pos2Y)) <= 0
+                || Geometry.isZero(pos1X - pos2X, pos1Y - pos2Y)) {
+            return -angle4;
+        }
+        return angle4;
+    }
+
+    private void updateCatPosition(GameState state) {
+        double catAngle = state.getCatAngle();
+        if (mathMode == MathMode.FAST) {
+            state.setCatPosition(FastTrig.cos(catAngle) * RADIUS_POOL, FastTrig.sin(catAngle) * RADIUS_POOL);
+        }
+        else {
+            state.setCatPosition(Math.cos(catAngle) * RADIUS_POOL, Math.sin(catAngle) * RADIUS_POOL);
+        }
+    }
+
+    private boolean checkEscapeCat(GameState state) {
+        return Geometry.dist(state.getMouseX(), state.getMouseY(), state.getCatX(), state.getCatY()) > CAT_RADIUS;
+    }
+}
@@ -0,0 +1,53 @@
+package com.codingame.game;
+
+/**
+ * Table based sin, cos and asin with linear interpolation, for {@link MathMode#FAST}.
+ * The absolute error is below 1e-6 rad, that is less than 1e-3 pixel on the rim.
+ */
+final class FastTrig {
+    private static final int SIN_SIZE = 1 << 12;
+    private static final int SIN_MASK = SIN_SIZE - 1;
+    private static final double SIN_SCALE = SIN_SIZE / (2 * Math.PI);
+    private static final double[] SIN = new double[SIN_SIZE + 1];
+
+    private static final int ASIN_SIZE = 1 << 12;
+    /** asin is too steep to interpolate close to 1, Math.asin takes over above this value */
+    private static final double ASIN_LIMIT = 0.95;
+    private static final double ASIN_SCALE = ASIN_SIZE / ASIN_LIMIT;
+    private static final double[] ASIN = new double[ASIN_SIZE + 1];
+
+    static {
+        for (int i = 0; i <= SIN_SIZE; i++) {
+            SIN[i] = Math.sin(i / SIN_SCALE);
+        }
+        for (int i = 0; i <= ASIN_SIZE; i++) {
+            ASIN[i] = Math.asin(i / ASIN_SCALE);
+        }
+    }
+
+    private FastTrig() {
+    }
+
+    static double sin(double angle) {
+        double x = angle * SIN_SCALE;
+        double floor = Math.floor(x);
+        int i = (int) ((long) floor & SIN_MASK);
+        double frac = x - floor;
+        return SIN[i] + (SIN[i + 1] - SIN[i]) * frac;
+    }
+
+    static double cos(double angle) {
+        return sin(angle + Math.PI / 2);
+    }
+
+    static double asin(double value) {
+        double abs = Math.abs(value);
+        if (abs >= ASIN_LIMIT) {
+            return Math.asin(value);
+        }
+        double x = abs * ASIN_SCALE;
+        int i = (int) x;
+        double result = ASIN[i] + (ASIN[i + 1] - ASIN[i]) * (x - i);
+        return value < 0 ? -result : result;
+    }
+}
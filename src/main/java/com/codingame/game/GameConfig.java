@@ -0,0 +1,68 @@
+package com.codingame.game;
+
+/**
+ * Settings of the games played by an {@link EscapeSimulator}: math mode, early termination and
+ * cat policy. Immutable, so a configuration and the simulator built on it can be shared by any
+ * number of threads; games differing in their settings each get their own configuration rather
+ * than changing a shared one.
+ */
+public final class GameConfig {
+    /** The referee's rules. */
+    public static final GameConfig DEFAULT = new GameConfig(MathMode.STRICT);
+
+    private final MathMode mathMode;
+    private final boolean earlyTermination;
+    private final CatPolicy catPolicy;
+
+    /** The referee's cat, without early termination. */
+    public GameConfig(MathMode mathMode) {
+        this(mathMode, false, new AnalyticCatPolicy(mathMode));
+    }
+
+    /**
+     * @param earlyTermination end games with NO_ESCAPE as soon as {@link EscapeBound} proves the mouse cannot win
+     * @param catPolicy how the cat runs; early termination needs the referee's cat, an {@link AnalyticCatPolicy},
+     *     as the bound assumes it
+     */
+    public GameConfig(MathMode mathMode, boolean earlyTermination, CatPolicy catPolicy) {
+        if (mathMode == null || catPolicy == null) {
+            throw new IllegalArgumentException("Math mode and cat policy are required");
+        }
+        if (earlyTermination && !(catPolicy instanceof AnalyticCatPolicy)) {
+            throw new IllegalArgumentException("Early termination needs the analytic cat policy");
+        }
+        this.mathMode = mathMode;
+        this.earlyTermination = earlyTermination;
+        this.catPolicy = catPolicy;
+    }
+
+    public MathMode getMathMode() {
+        return mathMode;
+    }
+
+    public boolean isEarlyTermination() {
+        return earlyTermination;
+    }
+
+    public CatPolicy getCatPolicy() {
+        return catPolicy;
+    }
+
+    public GameConfig withEarlyTermination(boolean earlyTermination) {
+        return new GameConfig(mathMode, earlyTermination, catPolicy);
+    }
+
+    public GameConfig withCatPolicy(CatPolicy catPolicy) {
+        return new GameConfig(mathMode, earlyTermination, catPolicy);
+    }
+
+    /** Stable text naming the settings, the cat policy's parameters and data included, see {@link CatPolicy#identity()}. */
+    public String identity() {
+        return mathMode + (earlyTermination ? " early termination " : " ") + catPolicy.identity();
+    }
+
+    @Override
+    public String toString() {
+        return mathMode + (earlyTermination ? " early termination " : " ") + catPolicy.getClass().getSimpleName();
+    }
+}
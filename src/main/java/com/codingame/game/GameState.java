@@ -0,0 +1,143 @@
+package com.codingame.game;
+
+/**
+ * State of one game, as advanced by {@link EscapeSimulator}.
+ * Positions are relative to the center of the pool, y pointing up.
+ * It only holds primitives, so {@link #snapshot()} and {@link #restore(GameState)} are plain
+ * field copies, cheap enough for search agents cloning states at every node.
+ */
+public class GameState {
+    private double mouseX;
+    private double mouseY;
+    private double catX;
+    private double catY;
+    private double catAngle;
+    private int catSpeed;
+    private double maxAngle;
+    private double mouseStepX;
+    private double mouseStepY;
+    private int turn;
+
+    public GameState() {
+    }
+
+    public GameState(GameState other) {
+        restore(other);
+    }
+
+    /** Independent copy of this state. */
+    public GameState snapshot() {
+        return new GameState(this);
+    }
+
+    /** Overwrites this state with a snapshot, without allocating.
+     * @return this
+     */
+    public GameState restore(GameState snapshot) {
+        this.mouseX = snapshot.mouseX;
+        this.mouseY = snapshot.mouseY;
+        this.catX = snapshot.catX;
+        this.catY = snapshot.catY;
+        this.catAngle = snapshot.catAngle;
+        this.catSpeed = snapshot.catSpeed;
+        this.maxAngle = snapshot.maxAngle;
+        this.mouseStepX = snapshot.mouseStepX;
+        this.mouseStepY = snapshot.mouseStepY;
+        this.turn = snapshot.turn;
+        return this;
+    }
+
+    public double getMouseX() {
+        return mouseX;
+    }
+
+    public double getMouseY() {
+        return mouseY;
+    }
+
+    /** Mouse x as sent to the player. */
+    public int getMouseXInt() {
+        return (int) mouseX;
+    }
+
+    /** Mouse y as sent to the player. */
+    public int getMouseYInt() {
+        return (int) mouseY;
+    }
+
+    public void setMousePosition(double mouseX, double mouseY) {
+        this.mouseX = mouseX;
+        this.mouseY = mouseY;
+    }
+
+    public double getCatX() {
+        return catX;
+    }
+
+    public double getCatY() {
+        return catY;
+    }
+
+    /** Cat x as sent to the player. */
+    public int getCatXInt() {
+        return (int) catX;
+    }
+
+    /** Cat y as sent to the player. */
+    public int getCatYInt() {
+        return (int) catY;
+    }
+
+    public void setCatPosition(double catX, double catY) {
+        this.catX = catX;
+        this.catY = catY;
+    }
+
+    public double getCatAngle() {
+        return catAngle;
+    }
+
+    public void setCatAngle(double catAngle) {
+        this.catAngle = catAngle;
+    }
+
+    public int getCatSpeed() {
+        return catSpeed;
+    }
+
+    public void setCatSpeed(int catSpeed) {
+        this.catSpeed = catSpeed;
+    }
+
+    /** Largest angle (radians) the cat can run along the rim in one turn. */
+    public double getMaxAngle() {
+        return maxAngle;
+    }
+
+    public void setMaxAngle(double maxAngle) {
+        this.maxAngle = maxAngle;
+    }
+
+    /** Move of the mouse during the last turn, zero before the first one. */
+    public double getMouseStepX() {
+        return mouseStepX;
+    }
+
+    public double getMouseStepY() {
+        return mouseStepY;
+    }
+
+    public void setMouseStep(double mouseStepX, double mouseStepY) {
+        this.mouseStepX = mouseStepX;
+        this.mouseStepY = mouseStepY;
+    }
+
+    /** Number of turns already played. */
+    public int getTurn() {
+        return turn;
+    }
+
+    public void setTurn(int turn) {
+        this.turn = turn;
+    }
+}
@@ -0,0 +1,153 @@
+package com.codingame.game;
+
+import com.codingame.gameengine.module.entities.GraphicEntityModule;
+import com.codingame.gameengine.module.entities.Sprite;
+import com.codingame.gameengine.module.entities.Text;
+import com.codingame.gameengine.module.tooltip.TooltipModule;
+
+/**
+ * Entities of the viewer. It remembers the last coordinates and texts it sent and only
+ * updates what changed at pixel resolution. In keyframe mode, positions and message are only sent every
+ * few turns and on the last one, which shrinks the replay of long games.
+ */
+public class GameView {
+    private final GraphicEntityModule graphicEntityModule;
+    private final TooltipModule tooltips;
+    private final int keyframeInterval;
+
+    private Sprite mouseSprite;
+    private Sprite catSprite;
+    private Text infoText;
+
+    private int mouseX;
+    private int mouseY;
+    private int catX;
+    private int catY;
+    private String message = "";
+
+    /**
+     * @param keyframeInterval refresh the view every keyframeInterval turns, 1 to refresh it every turn
+     */
+    public GameView(GraphicEntityModule graphicEntityModule, TooltipModule tooltips, int keyframeInterval) {
+        this.graphicEntityModule = graphicEntityModule;
+        this.tooltips = tooltips;
+        this.keyframeInterval = Math.max(1, keyframeInterval);
+    }
+
+    public void init(GameState state) {
+        // Draw background
+        graphicEntityModule.createSprite().setImage(Referee.BACKGROUND_SPRITE);
+
+        //display center
+        graphicEntityModule.createCircle()
+                .setRadius(5)
+                .setLineWidth(0)
+                .setFillColor(0x009900)
+                .setX(Referee.CENTER_X)
+                .setY(Referee.CENTER_Y);
+
+        graphicEntityModule.createRectangle().setLineWidth(2)
+                .setWidth(550)
+                .setHeight(55)
+                .setLineWidth(2)
+                .setLineColor(0x000000)
+                .setFillColor(0x030303)
+                .setX(20)
+                .setY(20)
+                .setZIndex(3);
+
+        infoText = graphicEntityModule.createText("")
+                .setFontFamily("Lato")
+                .setStrokeThickness(2) // Adding an outline
+                .setFontSize(35)
+                .setX(23)
+                .setY(25)
+                .setFillColor(0xFFFFFF)
+                .setZIndex(4);
+
+        mouseX = state.getMouseXInt();
+        mouseY = state.getMouseYInt();
+        catX = state.getCatXInt();
+        catY = state.getCatYInt();
+
+        mouseSprite = graphicEntityModule.createSprite().setImage(Referee.MOUSE_SPRITE)
+                .setX(screenX(mouseX))
+                .setY(screenY(mouseY))
+                .setAnchor(.5)
+                .setZIndex(1);
+
+        catSprite = graphicEntityModule.createSprite().setImage(Referee.CAT_SPRITE)
+                .setX(screenX(catX))
+                .setY(screenY(catY))
+                .setAnchor(.5)
+                .setZIndex(2);
+
+        tooltips.setTooltipText(mouseSprite, tooltip(mouseX, mouseY));
+        tooltips.setTooltipText(catSprite, tooltip(catX, catY));
+    }
+
+    /** Sends the positions and the message that changed since the last update.
+     * @param keyframe true to bypass the keyframe interval, e.g. on the last turn of the game
+     */
+    public void update(GameState state, String message, boolean keyframe) {
+        if (!keyframe && state.getTurn() % keyframeInterval != 0) {
+            return;
+        }
+        int newMouseX = state.getMouseXInt();
+        int newMouseY = state.getMouseYInt();
+        if (newMouseX != mouseX || newMouseY != mouseY) {
+            moveSprite(mouseSprite, mouseX, mouseY, newMouseX, newMouseY);
+            mouseX = newMouseX;
+            mouseY = newMouseY;
+        }
+        int newCatX = state.getCatXInt();
+        int newCatY = state.getCatYInt();
+        if (newCatX != catX || newCatY != catY) {
+            moveSprite(catSprite, catX, catY, newCatX, newCatY);
+            catX = newCatX;
+            catY = newCatY;
+        }
+        if (!message.equals(this.message)) {
+            infoText.setText(message);
+            this.message = message;
+        }
+    }
+
+    public void displayWin() {
+        graphicEntityModule.createSprite().setImage("winner-png-25168.png")
+                .setX(Referee.CENTER_X - Referee.WINNER_X_OFFSET)
+                .setY(Referee.CENTER_Y - Referee.WINNER_Y_OFFSET)
+                .setScale(2)
+                .setZIndex(5);
+    }
+
+    public void displayLoose() {
+        graphicEntityModule.createSprite().setImage("loser.png")
+                .setX(Referee.CENTER_X - Referee.LOSER_X_OFFSET)
+                .setY(Referee.CENTER_Y - Referee.LOSER_Y_OFFSET)
+                .setScale(.5)
+                .setZIndex(5);
+    }
+
+    private void moveSprite(Sprite sprite, int oldX, int oldY, int x, int y) {
+        if (x != oldX) {
+            sprite.setX(screenX(x));
+        }
+        if (y != oldY) {
+            sprite.setY(screenY(y));
+        }
+        tooltips.setTooltipText(sprite, tooltip(x, y));
+    }
+
+    private static int screenX(int x) {
+        return Referee.CENTER_X + x;
+    }
+
+    private static int screenY(int y) {
+        return Referee.CENTER_Y - y;
+    }
+
+    private static String tooltip(int x, int y) {
+        return "X:" + x + " Y:" + y;
+    }
+}
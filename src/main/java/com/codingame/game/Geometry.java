@@ -0,0 +1,74 @@
+package com.codingame.game;
+
+/**
+ * Allocation free counterparts of the {@link Complex} operations used by the rules.
+ * Points and vectors are passed as (x, y) doubles. Every kernel rounds exactly like the
+ * Complex expression it replaces, so the rules give bit-identical results either way.
+ */
+public final class Geometry {
+    /** same threshold as Complex.isZero */
+    private static final double EPSILON = 0.0000001;
+
+    private Geometry() {
+    }
+
+    /** Same as <code>new Complex(x, y).module()</code>. */
+    public static double module(double x, double y) {
+        return Math.sqrt(x * x + y * y);
+    }
+
+    /** Same as <code>Complex.dist(a, b)</code>. */
+    public static double dist(double ax, double ay, double bx, double by) {
+        return module(ax - bx, ay - by);
+    }
+
+    /** Factor turning a vector of the given module into a unit vector.
+     * <code>v.reduceToNorm1()</code> multiplies by this value rather than dividing by the module.
+     */
+    public static double unitFactor(double module) {
+        return module / (module * module);
+    }
+
+    /** Same as <code>new Complex(x, y).isZero()</code>. */
+    public static boolean isZero(double x, double y) {
+        return Math.abs(x) <= EPSILON && Math.abs(y) <= EPSILON;
+    }
+
+    /** Angle (radians, in [0, PI]) between the directions of a and b seen from the origin.
+     * Same as <code>Complex.angleRad(a, new Complex(0, 0), b)</code>.
+     */
+    public static double angleBetween(double ax, double ay, double bx, double by) {
+        return 2 * Math.asin(unitChord(ax, ay, bx, by) / 2);
+    }
+
+    /** Distance between the unit vectors of a and b, the chord behind {@link #angleBetween}. */
+    public static double unitChord(double ax, double ay, double bx, double by) {
+        double fa = unitFactor(module(ax, ay));
+        double fb = unitFactor(module(bx, by));
+        return module(bx * fb - ax * fa, by * fb - ay * fa);
+    }
+
+    /** One root t of |p + t*d| = radius.
+     * @param larger true for (-B + sqrt(delta)) / 2A, false for (-B - sqrt(delta)) / 2A
+     * @return the root, or NaN when the line misses the circle
+     */
+    public static double circleRoot(double px, double py, double dx, double dy, double radius, boolean larger) {
+        double a = dx * dx + dy * dy;
+        double b = 2 * px * dx + 2 * py * dy;
+        double c = px * px + py * py - radius * radius;
+        double delta = b * b - 4 * a * c;
+        if (delta < 0) {
+            return Double.NaN;
+        }
+        return larger ? (-b + Math.sqrt(delta)) / (2 * a) : (-b - Math.sqrt(delta)) / (2 * a);
+    }
+
+    /** Whether the segment from p to p + d reaches the circle of the given radius.
+     * @return true when one of the roots lies in (0, 1]
+     */
+    public static boolean crossesCircle(double px, double py, double dx, double dy, double radius) {
+        double tOne = circleRoot(px, py, dx, dy, radius, true);
+        double tTwo = circleRoot(px, py, dx, dy, radius, false);
+        return (tOne > 0 && tOne <= 1) || (tTwo > 0 && tTwo <= 1);
+    }
+}
@@ -0,0 +1,32 @@
+package com.codingame.game;
+
+/**
+ * Easier cat: it decides like another policy but only runs a fraction of its max angle per turn.
+ */
+public class LaggingCatPolicy implements CatPolicy {
+    private final CatPolicy policy;
+    private final double speedFactor;
+
+    /**
+     * @param speedFactor fraction of the max angle the cat may run, in (0, 1]
+     */
+    public LaggingCatPolicy(CatPolicy policy, double speedFactor) {
+        if (!(speedFactor > 0 && speedFactor <= 1)) {
+            throw new IllegalArgumentException("Speed factor " + speedFactor + " out of (0, 1]");
+        }
+        this.policy = policy;
+        this.speedFactor = speedFactor;
+    }
+
+    @Override
+    public double pursuitAngle(GameState state) {
+        double angle = policy.pursuitAngle(state);
+        double limit = state.getMaxAngle() * speedFactor;
+        return Math.max(-limit, Math.min(limit, angle));
+    }
+
+    @Override
+    public String identity() {
+        return "lagging " + speedFactor + " " + policy.identity();
+    }
+}
@@ -0,0 +1,103 @@
+package com.codingame.game;
+
+import java.util.Arrays;
+
+/**
+ * Log-linear histogram of non negative values (nanoseconds, bytes): each power of two is
+ * split in 8 buckets, so percentiles are within 12.5%. Not thread safe; merge per thread
+ * histograms instead of sharing one.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    private final long[] counts = new long[(64 - SUB_BITS + 1) * SUB_BUCKETS];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts[bucket(v)]++;
+        count++;
+        sum += v;
+        min = Math.min(min, v);
+        max = Math.max(max, v);
+    }
+
+    private static int bucket(long value) {
+        int magnitude = 64 - Long.numberOfLeadingZeros(value);
+        if (magnitude <= SUB_BITS) {
+            return (int) value;
+        }
+        int shift = magnitude - SUB_BITS - 1;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    /** Highest value that falls in the bucket. */
+    private static long bucketTop(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long base = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return base + (1L << shift) - 1;
+    }
+
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getMin() {
+        return count == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    /** Value under which the given fraction (0 to 1) of the recorded values fall, bucket resolution. */
+    public long getPercentile(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, bucketTop(i));
+            }
+        }
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "n=" + count + " mean=" + Math.round(getMean()) + " p50=" + getPercentile(0.5)
+                + " p99=" + getPercentile(0.99) + " max=" + getMax();
+    }
+}
@@ -0,0 +1,11 @@
+package com.codingame.game;
+
+/**
+ * How {@link EscapeSimulator} evaluates the cat's trigonometry.
+ */
+public enum MathMode {
+    /** java.lang.Math everywhere, bit-identical to the referee. */
+    STRICT,
+    /** {@link FastTrig} tables and a closed form choice of the cat's direction. Results drift slightly. */
+    FAST
+}
@@ -0,0 +1,16 @@
+package com.codingame.game;
+
+/**
+ * A player running in the same JVM as the rules.
+ * It receives the same integers the text protocol sends and answers with a {@link MouseMove}.
+ */
+public interface MouseAgent {
+
+    /** Called once before the first turn with the value of the initialisation line. */
+    void init(int catSpeed);
+
+    /** Called every turn with the values of the turn input line.
+     * @param move reused holder to fill with the target and the optional message
+     */
+    void move(int mouseX, int mouseY, int catX, int catY, MouseMove move);
+}
@@ -0,0 +1,33 @@
+package com.codingame.game;
+
+/**
+ * Answer of a {@link MouseAgent} for one turn. Instances are reused from turn to turn.
+ */
+public class MouseMove {
+    private int targetX;
+    private int targetY;
+    private String message = "";
+
+    public MouseMove set(int targetX, int targetY) {
+        this.targetX = targetX;
+        this.targetY = targetY;
+        return this;
+    }
+
+    public int getTargetX() {
+        return targetX;
+    }
+
+    public int getTargetY() {
+        return targetY;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public MouseMove setMessage(String message) {
+        this.message = message == null ? "" : message;
+        return this;
+    }
+}
@@ -0,0 +1,113 @@
+package com.codingame.game;
+
+/**
+ * Harder variant of the game: K cats on the rim, each with its own speed.
+ * The mouse moves as in {@link EscapeSimulator}. When it reaches the rim, the cat nearest to
+ * the exit point, found in the {@link CatPack} index, must be further than
+ * {@link EscapeSimulator#CAT_RADIUS} from the mouse, as the single cat must. Then every cat runs
+ * toward the mouse, each capped by its own speed.
+ *
+ * The cats run the closed form pursuit of {@link MathMode#FAST}, so a game with a single cat
+ * plays like the fast rules rather than bit for bit like the referee.
+ */
+public class MultiCatGame {
+    private final CatPack cats;
+    private double mouseX;
+    private double mouseY;
+    private int turn;
+
+    /**
+     * @param catAngles initial angle of each cat
+     * @param catSpeeds speed of each cat, in pixels per turn
+     */
+    public MultiCatGame(double mouseX, double mouseY, double[] catAngles, int[] catSpeeds) {
+        this.mouseX = mouseX;
+        this.mouseY = mouseY;
+        this.cats = new CatPack(catAngles, catSpeeds);
+    }
+
+    /** Parses "mouseX mouseY catAngle1 catSpeed1 catAngle2 catSpeed2 ...", the test case format
+     * with one angle and speed pair per cat.
+     */
+    public static MultiCatGame parse(String line) {
+        String[] tokens = line.trim().split("\\s+");
+        if (tokens.length < 4 || tokens.length % 2 != 0) {
+            throw new IllegalArgumentException("Expected mouseX mouseY then angle and speed pairs: " + line);
+        }
+        int count = (tokens.length - 2) / 2;
+        double[] angles = new double[count];
+        int[] speeds = new int[count];
+        for (int i = 0; i < count; i++) {
+            angles[i] = Float.valueOf(tokens[2 + 2 * i]);
+            speeds[i] = Integer.parseInt(tokens[3 + 2 * i]);
+        }
+        return new MultiCatGame(Integer.parseInt(tokens[0]), Integer.parseInt(tokens[1]), angles, speeds);
+    }
+
+    public CatPack getCats() {
+        return cats;
+    }
+
+    public double getMouseX() {
+        return mouseX;
+    }
+
+    public double getMouseY() {
+        return mouseY;
+    }
+
+    public int getTurn() {
+        return turn;
+    }
+
+    /** Rank in {@link #getCats()} of the cat closest to the mouse. */
+    public int nearestCat() {
+        return cats.nearest(Math.atan2(mouseY, mouseX));
+    }
+
+    /** Plays one turn: the mouse runs toward the target, then every cat runs along the rim.
+     * @return ESCAPED or CAUGHT when the mouse reached the rim this turn, RUNNING otherwise
+     */
+    public Outcome step(double targetX, double targetY) {
+        double diffX = targetX - mouseX;
+        double diffY = targetY - mouseY;
+        double module = Geometry.module(diffX, diffY);
+        if (module > EscapeSimulator.MOUSE_SPEED) {
+            double factor = Geometry.unitFactor(module);
+            diffX = diffX * factor * EscapeSimulator.MOUSE_SPEED;
+            diffY = diffY * factor * EscapeSimulator.MOUSE_SPEED;
+        }
+        Outcome outcome = Outcome.RUNNING;
+        double t = TurnGeometry.firstCrossing(mouseX, mouseY, diffX, diffY, EscapeSimulator.RADIUS_POOL);
+        if (t == t) {
+            int nearest = cats.nearest(Math.atan2(mouseY + t * diffY, mouseX + t * diffX));
+            boolean escaped = Geometry.dist(mouseX, mouseY, cats.getX(nearest), cats.getY(nearest)) > EscapeSimulator.CAT_RADIUS;
+            outcome = escaped ? Outcome.ESCAPED : Outcome.CAUGHT;
+        }
+        else {
+            mouseX += diffX;
+            mouseY += diffY;
+        }
+        cats.pursue(mouseX, mouseY);
+        turn++;
+        return outcome;
+    }
+
+    /** Plays a whole game. The agent sees the cat nearest to the mouse as if it were the only one,
+     * so single cat agents can play multi-cat leagues unchanged.
+     */
+    public Outcome play(MouseAgent agent) {
+        MouseMove move = new MouseMove();
+        int nearest = nearestCat();
+        agent.init(cats.getSpeed(nearest));
+        while (turn < EscapeSimulator.MAX_TURNS) {
+            nearest = nearestCat();
+            agent.move((int) mouseX, (int) mouseY, (int) cats.getX(nearest), (int) cats.getY(nearest), move);
+            Outcome outcome = step(move.getTargetX(), move.getTargetY());
+            if (outcome != Outcome.RUNNING) {
+                return outcome;
+            }
+        }
+        return Outcome.OUT_OF_TURNS;
+    }
+}
@@ -0,0 +1,7 @@
+package com.codingame.game;
+
+public enum Outcome {
+    RUNNING, ESCAPED, CAUGHT, OUT_OF_TURNS,
+    /** game stopped early: {@link EscapeBound} proved the mouse cannot escape anymore */
+    NO_ESCAPE
+}
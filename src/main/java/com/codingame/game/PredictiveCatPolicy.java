@@ -0,0 +1,41 @@
+package com.codingame.game;
+
+/**
+ * Harder cat: while the mouse heads outward, it extends the last move of the mouse to the rim
+ * and runs toward that exit point rather than the closest one, which defeats dashes at an angle
+ * from the radius. Otherwise, before the mouse first moves, or when it stood still, it runs to
+ * the closest rim point like {@link AnalyticCatPolicy}.
+ */
+public class PredictiveCatPolicy implements CatPolicy {
+    private final MathMode mathMode;
+    private final AnalyticCatPolicy closest;
+
+    public PredictiveCatPolicy(MathMode mathMode) {
+        this.mathMode = mathMode;
+        this.closest = new AnalyticCatPolicy(mathMode);
+    }
+
+    @Override
+    public double pursuitAngle(GameState state) {
+        double mouseX = state.getMouseX();
+        double mouseY = state.getMouseY();
+        double stepX = state.getMouseStepX();
+        double stepY = state.getMouseStepY();
+        double b = mouseX * stepX + mouseY * stepY;
+        if (b <= 0) {
+            return closest.pursuitAngle(state);
+        }
+        // ray p + t*d with t >= 0 from inside the pool: the larger root is the exit, taken in its stable form
+        double a = stepX * stepX + stepY * stepY;
+        double c = mouseX * mouseX + mouseY * mouseY - (double) EscapeSimulator.RADIUS_POOL * EscapeSimulator.RADIUS_POOL;
+        double delta = Math.max(0, b * b - a * c);
+        double t = -c / (b + Math.sqrt(delta));
+        return TurnGeometry.pursuitAngle(mathMode, mouseX + t * stepX, mouseY + t * stepY,
+                state.getCatX(), state.getCatY(), EscapeSimulator.RADIUS_POOL);
+    }
+
+    @Override
+    public String identity() {
+        return "predictive " + mathMode;
+    }
+}
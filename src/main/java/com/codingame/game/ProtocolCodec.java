@@ -0,0 +1,131 @@
+package com.codingame.game;
+
+/**
+ * Text protocol between the referee and the player.
+ * Player lines are parsed in a single pass without splitting, and input lines are built in a
+ * reused buffer. One codec per game; instances are not thread safe.
+ */
+public class ProtocolCodec {
+    public static final int CAPPED_MESSAGE_LENGTH = 26;
+
+    public static final String NO_OUTPUT = "You did not send output in your turn.";
+    public static final String BAD_FORMAT = "You did not provide correct output (2 integers) + Message";
+    public static final String BAD_INTEGERS = "You didn,t provide valid integers";
+
+    private final StringBuilder input = new StringBuilder(32);
+    private int parsedInt;
+
+    /** First line sent to the player. */
+    public String formatInit(GameState state) {
+        input.setLength(0);
+        return input.append(state.getCatSpeed()).toString();
+    }
+
+    /** Line sent to the player every turn: "mouseX mouseY catX catY". */
+    public String formatTurn(GameState state) {
+        input.setLength(0);
+        return input.append(state.getMouseXInt()).append(' ')
+                .append(state.getMouseYInt()).append(' ')
+                .append(state.getCatXInt()).append(' ')
+                .append(state.getCatYInt()).toString();
+    }
+
+    /** Parses a player line "x y [message]".
+     * Tokens are separated by single spaces, as they always were: "1  2" is not a valid answer.
+     * The message is trimmed and capped to {@link #CAPPED_MESSAGE_LENGTH} characters.
+     * @param line the player output line
+     * @param move receives the target and the message
+     * @return null when the line is valid, otherwise the reason to give to loseGame
+     */
+    public String parseOutput(String line, MouseMove move) {
+        int end = line.length();
+        while (end > 0 && line.charAt(end - 1) == ' ') {
+            end--;
+        }
+        int firstSpace = line.indexOf(' ');
+        if (firstSpace < 0 || firstSpace >= end) {
+            return BAD_FORMAT;
+        }
+        int secondSpace = line.indexOf(' ', firstSpace + 1);
+        if (secondSpace < 0 || secondSpace >= end) {
+            secondSpace = end;
+        }
+
+        if (!parseInt(line, 0, firstSpace)) {
+            return BAD_INTEGERS;
+        }
+        int x = parsedInt;
+        if (!parseInt(line, firstSpace + 1, secondSpace)) {
+            return BAD_INTEGERS;
+        }
+        move.set(x, parsedInt);
+        move.setMessage(message(line, secondSpace + 1, end));
+        return null;
+    }
+
+    /** The message as {@link #parseOutput} would have read it from a line ending with it,
+     * so agents answering in-process show the same text as through the protocol.
+     */
+    public static String capMessage(String message) {
+        int end = message.length();
+        while (end > 0 && message.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return message(message, 0, end);
+    }
+
+    private static String message(String line, int from, int end) {
+        if (from >= end) {
+            return "";
+        }
+        int start = from;
+        int stop = end;
+        while (start < stop && line.charAt(start) <= ' ') {
+            start++;
+        }
+        while (stop > start && line.charAt(stop - 1) <= ' ') {
+            stop--;
+        }
+        int length = Math.min(stop - start, Math.min(end - from, CAPPED_MESSAGE_LENGTH));
+        return line.substring(start, start + length);
+    }
+
+    /** Same rules as Integer.parseInt on line[from, to), result in parsedInt. */
+    private boolean parseInt(String line, int from, int to) {
+        if (from >= to) {
+            return false;
+        }
+        boolean negative = false;
+        int limit = -Integer.MAX_VALUE;
+        int i = from;
+        char first = line.charAt(i);
+        if (first < '0') {
+            if (first == '-') {
+                negative = true;
+                limit = Integer.MIN_VALUE;
+            }
+            else if (first != '+') {
+                return false;
+            }
+            if (to - from == 1) {
+                return false;
+            }
+            i++;
+        }
+        int multmin = limit / 10;
+        int result = 0;
+        for (; i < to; i++) {
+            int digit = Character.digit(line.charAt(i), 10);
+            if (digit < 0 || result < multmin) {
+                return false;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return false;
+            }
+            result -= digit;
+        }
+        parsedInt = negative ? result : -result;
+        return true;
+    }
+}
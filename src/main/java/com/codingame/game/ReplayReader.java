@@ -0,0 +1,209 @@
+package com.codingame.game;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Memory mapped access to a file written by {@link ReplayRecorder}.
+ * Games and turns are addressed by index in O(1), and a game can be replayed through the rules
+ * to check it reproduces what was recorded.
+ *
+ * The data file is mapped once, in chunks of whole games up to {@link #MAX_CHUNK} bytes, and
+ * every game is a slice of its chunk: reading millions of games makes no new mapping.
+ */
+public class ReplayReader implements Closeable {
+    /** largest mapping; one MappedByteBuffer cannot exceed 2 GB */
+    static final long MAX_CHUNK = 1L << 30;
+
+    private final FileChannel data;
+    private final FileChannel index;
+    private final LongBuffer offsets;
+    private final long[] chunkStarts;
+    private final ByteBuffer[] chunks;
+
+    public ReplayReader(Path file) throws IOException {
+        data = FileChannel.open(file, StandardOpenOption.READ);
+        index = FileChannel.open(ReplayRecorder.indexFile(file), StandardOpenOption.READ);
+        offsets = index.map(FileChannel.MapMode.READ_ONLY, 0, index.size()).asLongBuffer();
+
+        // cut the file before the first game that would end past the chunk limit
+        List<Long> starts = new ArrayList<>();
+        long size = data.size();
+        int games = offsets.limit();
+        long chunkStart = games == 0 ? 0 : offsets.get(0);
+        starts.add(chunkStart);
+        for (int i = 0; i < games; i++) {
+            long gameEnd = i + 1 < games ? offsets.get(i + 1) : size;
+            if (gameEnd - chunkStart > MAX_CHUNK) {
+                long gameStart = offsets.get(i);
+                if (gameEnd - gameStart > MAX_CHUNK) {
+                    throw new IOException("Replay game " + i + " is larger than a chunk");
+                }
+                chunkStart = gameStart;
+                starts.add(chunkStart);
+            }
+        }
+        chunkStarts = new long[starts.size()];
+        chunks = new ByteBuffer[starts.size()];
+        for (int i = 0; i < chunkStarts.length; i++) {
+            chunkStarts[i] = starts.get(i);
+            long chunkEnd = i + 1 < chunkStarts.length ? starts.get(i + 1) : size;
+            chunks[i] = data.map(FileChannel.MapMode.READ_ONLY, chunkStarts[i], chunkEnd - chunkStarts[i]);
+        }
+    }
+
+    public int getGameCount() {
+        return offsets.limit();
+    }
+
+    /** One game of the file, a view of the mapped data. */
+    public Game game(int gameIndex) throws IOException {
+        long offset = offsets.get(gameIndex);
+        int chunk = Arrays.binarySearch(chunkStarts, offset);
+        if (chunk < 0) {
+            chunk = -chunk - 2;
+        }
+        ByteBuffer game = chunks[chunk].duplicate();
+        int start = (int) (offset - chunkStarts[chunk]);
+        if (start + ReplayRecorder.HEADER_SIZE > game.limit()
+                || game.getInt(start) != ReplayRecorder.MAGIC || game.getShort(start + 4) != ReplayRecorder.VERSION) {
+            throw new IOException("Not a replay game of version " + ReplayRecorder.VERSION + " at offset " + offset);
+        }
+        game.limit(start + game.getInt(start + 36)).position(start);
+        return new Game(game.slice());
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            data.close();
+        } finally {
+            index.close();
+        }
+    }
+
+    /** One recorded game. Turn numbers start at 0; the record of a turn holds the state after it. */
+    public static class Game {
+        private final ByteBuffer buffer;
+        private String[] messages;
+
+        Game(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        public MathMode getMathMode() {
+            return MathMode.values()[buffer.get(6)];
+        }
+
+        public Outcome getOutcome() {
+            return Outcome.values()[buffer.get(7)];
+        }
+
+        public int getTurns() {
+            return buffer.getInt(8);
+        }
+
+        public TestCase getTestCase() {
+            return new TestCase(buffer.getInt(12), buffer.getInt(16), buffer.getDouble(24), buffer.getInt(20));
+        }
+
+        private int record(int turn) {
+            if (turn < 0 || turn >= getTurns()) {
+                throw new IndexOutOfBoundsException("Turn " + turn + " of " + getTurns());
+            }
+            return ReplayRecorder.HEADER_SIZE + turn * ReplayRecorder.RECORD_SIZE;
+        }
+
+        public double getMouseX(int turn) {
+            return buffer.getDouble(record(turn));
+        }
+
+        public double getMouseY(int turn) {
+            return buffer.getDouble(record(turn) + 8);
+        }
+
+        public double getCatAngle(int turn) {
+            return buffer.getDouble(record(turn) + 16);
+        }
+
+        public double getCatX(int turn) {
+            return buffer.getDouble(record(turn) + 24);
+        }
+
+        public double getCatY(int turn) {
+            return buffer.getDouble(record(turn) + 32);
+        }
+
+        public int getTargetX(int turn) {
+            return buffer.getInt(record(turn) + 40);
+        }
+
+        public int getTargetY(int turn) {
+            return buffer.getInt(record(turn) + 44);
+        }
+
+        public int getMessageIndex(int turn) {
+            return buffer.getInt(record(turn) + 48);
+        }
+
+        public Outcome getOutcome(int turn) {
+            return Outcome.values()[buffer.getInt(record(turn) + 52)];
+        }
+
+        public String getMessage(int turn) {
+            if (messages == null) {
+                messages = readMessages();
+            }
+            return messages[getMessageIndex(turn)];
+        }
+
+        private String[] readMessages() {
+            String[] result = new String[buffer.getInt(32)];
+            int position = ReplayRecorder.HEADER_SIZE + getTurns() * ReplayRecorder.RECORD_SIZE;
+            for (int i = 0; i < result.length; i++) {
+                int length = buffer.getShort(position) & 0xFFFF;
+                byte[] bytes = new byte[length];
+                ByteBuffer slice = buffer.duplicate();
+                slice.position(position + Short.BYTES);
+                slice.get(bytes);
+                result[i] = new String(bytes, StandardCharsets.UTF_8);
+                position += Short.BYTES + length;
+            }
+            return result;
+        }
+
+        /** Replays the recorded targets through the rules.
+         * @return the first turn whose state or outcome differs from the record, or -1 when the
+         *     whole game, final outcome included, is reproduced bit for bit
+         */
+        public int verify() {
+            // early termination only shows in the last turn, so it is on exactly for games it ended
+            EscapeSimulator simulator = new EscapeSimulator(getMathMode(), getOutcome() == Outcome.NO_ESCAPE);
+            GameState state = simulator.newGame(getTestCase());
+            int turns = getTurns();
+            Outcome outcome = Outcome.RUNNING;
+            for (int turn = 0; turn < turns; turn++) {
+                outcome = simulator.step(state, getTargetX(turn), getTargetY(turn));
+                if (outcome != getOutcome(turn)
+                        || Double.doubleToLongBits(state.getMouseX()) != Double.doubleToLongBits(getMouseX(turn))
+                        || Double.doubleToLongBits(state.getMouseY()) != Double.doubleToLongBits(getMouseY(turn))
+                        || Double.doubleToLongBits(state.getCatAngle()) != Double.doubleToLongBits(getCatAngle(turn))
+                        || Double.doubleToLongBits(state.getCatX()) != Double.doubleToLongBits(getCatX(turn))
+                        || Double.doubleToLongBits(state.getCatY()) != Double.doubleToLongBits(getCatY(turn))) {
+                    return turn;
+                }
+            }
+            Outcome expected = outcome == Outcome.RUNNING && turns == EscapeSimulator.MAX_TURNS ? Outcome.OUT_OF_TURNS : outcome;
+            return expected == getOutcome() ? -1 : Math.max(0, turns - 1);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.codingame.game;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appends games to a compact binary replay file, read back by {@link ReplayReader}.
+ *
+ * Each game is a fixed size header, one fixed width record per turn and the table of the
+ * distinct messages of the game. A companion ".idx" file holds the offset of every game, so
+ * any turn of any game is found in O(1). Records hold the state after the turn:
+ * <pre>
+ * header  (48 bytes): magic, version, math mode, outcome, turns, test case, message count, game size
+ * record  (56 bytes): mouseX, mouseY, catAngle, catX, catY (doubles), targetX, targetY, message index (ints), outcome
+ * message           : length (short) and UTF-8 bytes, index 0 is the empty message
+ * </pre>
+ * The recorder can be shared by several threads, each using its own {@link Recording}.
+ */
+public class ReplayRecorder implements Closeable {
+    static final int MAGIC = 0x45544352;
+    /** 2: FAST mode games changed with the stable kernels of {@link TurnGeometry} */
+    static final short VERSION = 2;
+    static final int HEADER_SIZE = 48;
+    static final int RECORD_SIZE = 56;
+    /** longer messages are truncated, the length is stored as an unsigned short */
+    static final int MAX_MESSAGE_BYTES = 0xFFFF;
+
+    private final FileChannel data;
+    private final FileChannel index;
+    private final ByteBuffer offset = ByteBuffer.allocate(Long.BYTES);
+
+    public ReplayRecorder(Path file) throws IOException {
+        data = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        data.position(data.size());
+        index = FileChannel.open(indexFile(file), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        index.position(index.size());
+    }
+
+    static Path indexFile(Path file) {
+        return Paths.get(file.toString() + ".idx");
+    }
+
+    /** Creates a recording to reuse for consecutive games of one thread. */
+    public Recording newRecording() {
+        return new Recording();
+    }
+
+    private synchronized void write(ByteBuffer game) throws IOException {
+        offset.clear();
+        offset.putLong(data.position()).flip();
+        while (game.hasRemaining()) {
+            data.write(game);
+        }
+        while (offset.hasRemaining()) {
+            index.write(offset);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            data.close();
+        } finally {
+            index.close();
+        }
+    }
+
+    /** One game being recorded. Not thread safe. */
+    public class Recording implements TurnListener {
+        private final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + EscapeSimulator.MAX_TURNS * RECORD_SIZE);
+        private final Map<String, Integer> messageIds = new HashMap<>();
+        private final List<String> messages = new ArrayList<>();
+
+        public void start(TestCase testCase, MathMode mathMode) {
+            buffer.clear();
+            messageIds.clear();
+            messages.clear();
+            messages.add("");
+            messageIds.put("", 0);
+            buffer.putInt(MAGIC)
+                    .putShort(VERSION)
+                    .put((byte) mathMode.ordinal())
+                    .put((byte) Outcome.RUNNING.ordinal())
+                    .putInt(0)
+                    .putInt(testCase.getMouseX())
+                    .putInt(testCase.getMouseY())
+                    .putInt(testCase.getCatSpeed())
+                    .putDouble(testCase.getCatAngle())
+                    .putInt(0)
+                    .putInt(0)
+                    .putLong(0);
+        }
+
+        @Override
+        public void onTurn(GameState state, MouseMove move, Outcome outcome) {
+            Integer messageId = messageIds.get(move.getMessage());
+            if (messageId == null) {
+                messageId = messages.size();
+                messages.add(move.getMessage());
+                messageIds.put(move.getMessage(), messageId);
+            }
+            buffer.putDouble(state.getMouseX())
+                    .putDouble(state.getMouseY())
+                    .putDouble(state.getCatAngle())
+                    .putDouble(state.getCatX())
+                    .putDouble(state.getCatY())
+                    .putInt(move.getTargetX())
+                    .putInt(move.getTargetY())
+                    .putInt(messageId)
+                    .putInt(outcome.ordinal());
+        }
+
+        /** Completes the header and appends the game to the replay file. */
+        public void finish(Outcome outcome, int turns) throws IOException {
+            int size = buffer.position();
+            for (int i = 0; i < messages.size(); i++) {
+                size += Short.BYTES + Math.min(messages.get(i).getBytes(StandardCharsets.UTF_8).length, MAX_MESSAGE_BYTES);
+            }
+            ByteBuffer game = buffer;
+            if (size > buffer.capacity()) {
+                game = ByteBuffer.allocate(size);
+                buffer.flip();
+                game.put(buffer);
+            }
+            for (int i = 0; i < messages.size(); i++) {
+                byte[] bytes = messages.get(i).getBytes(StandardCharsets.UTF_8);
+                game.putShort((short) Math.min(bytes.length, MAX_MESSAGE_BYTES)).put(bytes, 0, Math.min(bytes.length, MAX_MESSAGE_BYTES));
+            }
+            game.put(7, (byte) outcome.ordinal())
+                    .putInt(8, turns)
+                    .putInt(32, messages.size())
+                    .putInt(36, size);
+            game.flip();
+            write(game);
+        }
+    }
+}
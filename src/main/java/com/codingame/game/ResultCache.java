@@ -0,0 +1,372 @@
+package com.codingame.game;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Persistent cache of game results, so that a sweep only plays the games whose agent, rules or
+ * test case changed since the last run.
+ *
+ * A result is addressed by a hash of {@link EscapeSimulator#RULES_VERSION}, the {@link GameConfig#identity()},
+ * the digest of the agent artifact and the test case input line. Results are appended to a local
+ * file of fixed size records, indexed in memory by key. When the file grows past its size bound it
+ * is compacted, keeping the most recently used results up to half the bound.
+ * <pre>
+ * header  (8 bytes) : magic, version
+ * record (64 bytes) : key (16 bytes), outcome, turns (ints), mouseX, mouseY, catAngle, catX, catY (doubles)
+ * </pre>
+ * A record cut by a crash is dropped when the file is opened again. The cache can be shared by
+ * several threads.
+ */
+public class ResultCache implements Closeable {
+    static final int MAGIC = 0x45545243;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int RECORD_SIZE = 64;
+    private static final int KEY_SIZE = 16;
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    private final Path file;
+    private final long maxBytes;
+    /** offset of the record of every key, least recently used first */
+    private final LinkedHashMap<Key, Long> index = new LinkedHashMap<>(1024, 0.75f, true);
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    /** appended records not written yet, they follow the end of the file */
+    private final ByteBuffer pending = ByteBuffer.allocate(RECORD_SIZE * 256);
+    private FileChannel channel;
+    /** size of the file, without the pending records */
+    private long written;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxBytes size bound of the file, at least a few records
+     */
+    public ResultCache(Path file, long maxBytes) throws IOException {
+        if (maxBytes < HEADER_SIZE + 4 * RECORD_SIZE) {
+            throw new IllegalArgumentException("Cache size " + maxBytes + " is too small");
+        }
+        this.file = file;
+        this.maxBytes = maxBytes;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() < HEADER_SIZE) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            channel.truncate(0);
+            writeFully(header, 0);
+        } else {
+            load();
+        }
+        written = channel.size();
+        if (written > maxBytes) {
+            compact();
+        }
+    }
+
+    private void load() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(header, 0);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException(file + " is not a result cache");
+        }
+        long end = HEADER_SIZE + (channel.size() - HEADER_SIZE) / RECORD_SIZE * RECORD_SIZE;
+        channel.truncate(end);
+        // read the whole file in large blocks, later records of a key replacing earlier ones
+        ByteBuffer block = ByteBuffer.allocate(RECORD_SIZE * 4096);
+        for (long position = HEADER_SIZE; position < end; ) {
+            block.clear();
+            block.limit((int) Math.min(block.capacity(), end - position));
+            readFully(block, position);
+            block.flip();
+            while (block.hasRemaining()) {
+                index.put(new Key(block.getLong(), block.getLong()), position);
+                block.position(block.position() + RECORD_SIZE - KEY_SIZE);
+                position += RECORD_SIZE;
+            }
+        }
+    }
+
+    /** Key of the result of an agent on a test case, under the given rules.
+     * @param agent digest of the agent artifact, see {@link #digest(Path)} and {@link #digest(Class)}
+     */
+    public static Key key(GameConfig config, byte[] agent, TestCase testCase) {
+        return new KeySpace(config, agent).key(testCase);
+    }
+
+    /** Digest of an agent artifact: a file such as a jar, or every file under a directory, with its relative path. */
+    public static byte[] digest(Path artifact) throws IOException {
+        MessageDigest sha = sha256();
+        if (!Files.isDirectory(artifact)) {
+            sha.update(Files.readAllBytes(artifact));
+            return sha.digest();
+        }
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(artifact)) {
+            files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        for (Path path : files) {
+            sha.update(artifact.relativize(path).toString().getBytes(StandardCharsets.UTF_8));
+            sha.update((byte) 0);
+            sha.update(Files.readAllBytes(path));
+        }
+        return sha.digest();
+    }
+
+    /** Digest of the class file of an agent class. It does not cover the classes the agent uses:
+     * digest their jar or directory with {@link #digest(Path)} when they may change too.
+     */
+    public static byte[] digest(Class<?> type) throws IOException {
+        String resource = type.getName().replace('.', '/') + ".class";
+        ClassLoader loader = type.getClassLoader() != null ? type.getClassLoader() : ClassLoader.getSystemClassLoader();
+        try (InputStream in = loader.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("No class file for " + type.getName());
+            }
+            MessageDigest sha = sha256();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                sha.update(buffer, 0, read);
+            }
+            return sha.digest();
+        }
+    }
+
+    /** SHA-256 of the remaining bytes of a buffer, which is consumed. */
+    static byte[] digest(ByteBuffer data) {
+        MessageDigest sha = sha256();
+        sha.update(data);
+        return sha.digest();
+    }
+
+    static String hex(byte[] bytes) {
+        StringBuilder text = new StringBuilder(2 * bytes.length);
+        for (byte b : bytes) {
+            text.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return text.toString();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /** Looks a result up.
+     * @param state receives the final state of the game and its turns on a hit
+     * @return the outcome of the game, null when the result is not cached
+     */
+    public synchronized Outcome get(Key key, GameState state) throws IOException {
+        Long offset = index.get(key);
+        if (offset == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        readRecord(offset);
+        record.position(KEY_SIZE);
+        Outcome outcome = OUTCOMES[record.getInt()];
+        state.setTurn(record.getInt());
+        state.setMousePosition(record.getDouble(), record.getDouble());
+        state.setCatAngle(record.getDouble());
+        state.setCatPosition(record.getDouble(), record.getDouble());
+        return outcome;
+    }
+
+    /** Stores the result of a game, replacing any result of the same key. */
+    public synchronized void put(Key key, Outcome outcome, GameState state) throws IOException {
+        record.clear();
+        record.putLong(key.high).putLong(key.low)
+                .putInt(outcome.ordinal()).putInt(state.getTurn())
+                .putDouble(state.getMouseX()).putDouble(state.getMouseY())
+                .putDouble(state.getCatAngle())
+                .putDouble(state.getCatX()).putDouble(state.getCatY())
+                .flip();
+        long offset = written + pending.position();
+        pending.put(record);
+        index.put(key, offset);
+        if (offset + RECORD_SIZE > maxBytes) {
+            flush();
+            compact();
+        } else if (!pending.hasRemaining()) {
+            flush();
+        }
+    }
+
+    /** Writes the pending records at the end of the file. */
+    private void flush() throws IOException {
+        pending.flip();
+        writeFully(pending, written);
+        written += pending.limit();
+        pending.clear();
+    }
+
+    /** Reads the record at the given offset of the file or of the pending records into {@link #record}. */
+    private void readRecord(long offset) throws IOException {
+        record.clear();
+        if (offset < written) {
+            readFully(record, offset);
+            return;
+        }
+        ByteBuffer source = pending.duplicate();
+        source.limit((int) (offset - written) + RECORD_SIZE).position((int) (offset - written));
+        record.put(source);
+    }
+    /** Rewrites the file with the most recently used results only, up to half the size bound.
+     * There must be no pending record.
+     */
+    private void compact() throws IOException {
+        int keep = (int) Math.min(index.size(), (maxBytes / 2 - HEADER_SIZE) / RECORD_SIZE);
+        Path temporary = Paths.get(file.toString() + ".tmp");
+        List<Map.Entry<Key, Long>> kept = new ArrayList<>(keep);
+        Iterator<Map.Entry<Key, Long>> entries = index.entrySet().iterator();
+        for (int skip = index.size() - keep; skip > 0; skip--) {
+            entries.next();
+            entries.remove();
+            evictions++;
+        }
+        while (entries.hasNext()) {
+            kept.add(entries.next());
+        }
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            out.write(header);
+            long position = HEADER_SIZE;
+            for (Map.Entry<Key, Long> entry : kept) {
+                readRecord(entry.getValue());
+                record.flip();
+                while (record.hasRemaining()) {
+                    out.write(record);
+                }
+                entry.setValue(position);
+                position += RECORD_SIZE;
+            }
+            out.force(false);
+        }
+        channel.close();
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        written = channel.size();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException(file + " is truncated");
+            }
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /** Number of results dropped by compactions. */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+
+    /** Keys of the results of one agent under one configuration. The hash of the rules and the
+     * agent is computed once, each key then only hashes the test case. Can be shared by several threads.
+     */
+    public static final class KeySpace {
+        private final MessageDigest prefix;
+
+        /**
+         * @param agent digest of the agent artifact, see {@link #digest(Path)} and {@link #digest(Class)}
+         */
+        public KeySpace(GameConfig config, byte[] agent) {
+            prefix = sha256();
+            prefix.update(("rules " + EscapeSimulator.RULES_VERSION + "\n" + config.identity() + "\n").getBytes(StandardCharsets.UTF_8));
+            prefix.update(agent);
+            prefix.update((byte) '\n');
+        }
+
+        public Key key(TestCase testCase) {
+            MessageDigest sha;
+            try {
+                synchronized (prefix) {
+                    sha = (MessageDigest) prefix.clone();
+                }
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException("SHA-256 digests cannot be cloned", e);
+            }
+            ByteBuffer hash = ByteBuffer.wrap(sha.digest(testCase.toInputLine().getBytes(StandardCharsets.UTF_8)));
+            return new Key(hash.getLong(), hash.getLong());
+        }
+    }
+
+    /** First 128 bits of the SHA-256 of a result's inputs. */
+    public static final class Key {
+        private final long high;
+        private final long low;
+
+        Key(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && ((Key) other).high == high && ((Key) other).low == low;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(high);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%016x%016x", high, low);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.codingame.game;
+
+/**
+ * Packs the mouse position and the cat angle of a state into a long, at a fixed resolution.
+ * Unlike {@link Complex#equals}, which compares with an epsilon and so cannot agree with any
+ * hash code, two states fall on the same key exactly when they fall in the same cell. The keys
+ * can then index a {@link TranspositionTable} or any map, with no boxing.
+ *
+ * Layout, from the high bit: a set marker bit, so a key is never 0, then 20 bits of mouse x,
+ * 20 bits of mouse y and 23 bits of cat angle, the angle taken modulo 2 PI.
+ * The cat speed and the turn are not part of the key: a search usually runs on one cat speed,
+ * and callers mixing turns fold them into the stored value.
+ */
+public final class StateKey {
+    public static final int COORDINATE_BITS = 20;
+    public static final int ANGLE_BITS = 23;
+    private static final long MARKER = 1L << 63;
+    private static final long COORDINATE_MASK = (1L << COORDINATE_BITS) - 1;
+    private static final long ANGLE_MASK = (1L << ANGLE_BITS) - 1;
+    private static final double TWO_PI = 2 * Math.PI;
+
+    private final double positionResolution;
+    private final double angleResolution;
+    private final double positionScale;
+    private final double angleScale;
+    private final long angleCells;
+
+    /**
+     * @param positionResolution side of a cell in pixels, at least 1000 / 2^20 (about 0.001)
+     * @param angleResolution width of a cell in radians, at least 2 PI / 2^23 (about 7.5e-7)
+     */
+    public StateKey(double positionResolution, double angleResolution) {
+        double span = 2 * EscapeSimulator.RADIUS_POOL + 1;
+        if (!(span / positionResolution < 1 << COORDINATE_BITS)) {
+            throw new IllegalArgumentException("Position resolution " + positionResolution + " is too fine for " + COORDINATE_BITS + " bits");
+        }
+        if (!(TWO_PI / angleResolution < 1 << ANGLE_BITS)) {
+            throw new IllegalArgumentException("Angle resolution " + angleResolution + " is too fine for " + ANGLE_BITS + " bits");
+        }
+        this.positionResolution = positionResolution;
+        this.angleResolution = angleResolution;
+        this.positionScale = 1 / positionResolution;
+        this.angleScale = 1 / angleResolution;
+        this.angleCells = (long) Math.ceil(TWO_PI * angleScale);
+    }
+
+    public double getPositionResolution() {
+        return positionResolution;
+    }
+
+    public double getAngleResolution() {
+        return angleResolution;
+    }
+
+    public long of(GameState state) {
+        return of(state.getMouseX(), state.getMouseY(), state.getCatAngle());
+    }
+
+    public long of(double mouseX, double mouseY, double catAngle) {
+        return MARKER
+                | coordinate(mouseX) << (COORDINATE_BITS + ANGLE_BITS)
+                | coordinate(mouseY) << ANGLE_BITS
+                | angle(catAngle);
+    }
+
+    /** Cell of a coordinate, counted from the left or bottom edge of the pool. */
+    private long coordinate(double value) {
+        long cell = (long) Math.floor((value + EscapeSimulator.RADIUS_POOL) * positionScale);
+        return Math.max(0, Math.min(COORDINATE_MASK, cell));
+    }
+
+    private long angle(double value) {
+        double turns = value - TWO_PI * Math.floor(value / TWO_PI);
+        long cell = (long) (turns * angleScale);
+        // 2 PI itself may come out of the modulo through rounding, it is the same cell as 0
+        return (cell >= angleCells ? 0 : cell) & ANGLE_MASK;
+    }
+
+    /** Center of the mouse x cell of a key. */
+    public double mouseX(long key) {
+        return center(key >>> (COORDINATE_BITS + ANGLE_BITS) & COORDINATE_MASK);
+    }
+
+    /** Center of the mouse y cell of a key. */
+    public double mouseY(long key) {
+        return center(key >>> ANGLE_BITS & COORDINATE_MASK);
+    }
+
+    /** Center of the cat angle cell of a key, in [0, 2 PI). */
+    public double catAngle(long key) {
+        return ((key & ANGLE_MASK) + 0.5) * angleResolution;
+    }
+
+    private double center(long cell) {
+        return (cell + 0.5) * positionResolution - EscapeSimulator.RADIUS_POOL;
+    }
+}
@@ -0,0 +1,122 @@
+package com.codingame.game;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Cat policy read from a precomputed table: one decision per cell of the mouse's polar
+ * coordinates seen from the cat, i.e. its distance to the center and its angle from the cat's
+ * direction. The table is a memory mapped file, so a decision is one read, whatever policy it
+ * was built from.
+ *
+ * Only policies that depend on nothing but these positions can be tabled, such as
+ * {@link AnalyticCatPolicy}; they must also turn with the pool, as all the policies here do.
+ * Decisions are taken from the nearest cell, so results differ slightly from the source policy.
+ *
+ * File layout: a 16 byte header (magic, version, radius cells, angle cells) then one float per
+ * cell, radius major, angles going counterclockwise from -PI.
+ */
+public class TableCatPolicy implements CatPolicy {
+    private static final int MAGIC = 0x45544354;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final double R = EscapeSimulator.RADIUS_POOL;
+
+    private final ByteBuffer table;
+    private final int radiusCells;
+    private final int angleCells;
+    private final String digest;
+
+    public TableCatPolicy(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+            throw new IOException(file + " is not a cat policy table");
+        }
+        radiusCells = mapped.getInt(8);
+        angleCells = mapped.getInt(12);
+        if (radiusCells <= 0 || angleCells <= 0) {
+            throw new IOException(file + " has no cells");
+        }
+        if (tableSize(radiusCells, angleCells) > mapped.capacity()) {
+            throw new IOException(file + " is truncated");
+        }
+        table = mapped;
+        digest = ResultCache.hex(ResultCache.digest(mapped.duplicate()));
+    }
+
+    public int getRadiusCells() {
+        return radiusCells;
+    }
+
+    public int getAngleCells() {
+        return angleCells;
+    }
+
+    @Override
+    public double pursuitAngle(GameState state) {
+        double mouseX = state.getMouseX();
+        double mouseY = state.getMouseY();
+        double catX = state.getCatX();
+        double catY = state.getCatY();
+        // mouse in the frame of the cat: x along the cat's direction, both scaled by R
+        double along = mouseX * catX + mouseY * catY;
+        double across = catX * mouseY - catY * mouseX;
+        double radius = Geometry.module(mouseX, mouseY);
+        int radiusCell = Math.min(radiusCells - 1, (int) (radius / R * radiusCells));
+        int angleCell = (int) ((Math.atan2(across, along) + Math.PI) / (2 * Math.PI) * angleCells);
+        angleCell = angleCell >= angleCells ? 0 : angleCell;
+        return table.getFloat(HEADER_SIZE + Float.BYTES * (radiusCell * angleCells + angleCell));
+    }
+
+    /** Identified by the SHA-256 of the table, whatever file it is read from. */
+    @Override
+    public String identity() {
+        return "table " + digest;
+    }
+
+    private static long tableSize(int radiusCells, int angleCells) {
+        return HEADER_SIZE + (long) Float.BYTES * radiusCells * angleCells;
+    }
+
+    /** Tables a policy: evaluates it at the center of every cell, with the cat at angle 0.
+     * @param radiusCells cells along the mouse's distance to the center
+     * @param angleCells cells around the circle
+     */
+    public static void build(CatPolicy source, int radiusCells, int angleCells, Path file) throws IOException {
+        if (radiusCells <= 0 || angleCells <= 0) {
+            throw new IllegalArgumentException("Table of " + radiusCells + "x" + angleCells + " cells");
+        }
+        long size = tableSize(radiusCells, angleCells);
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Table of " + radiusCells + "x" + angleCells + " cells is larger than 2 GB");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(radiusCells).putInt(angleCells);
+        GameState state = new GameState();
+        state.setCatAngle(0);
+        state.setCatPosition(R, 0);
+        state.setMaxAngle(Math.PI);
+        for (int r = 0; r < radiusCells; r++) {
+            double radius = (r + 0.5) / radiusCells * R;
+            for (int a = 0; a < angleCells; a++) {
+                double angle = (a + 0.5) / angleCells * 2 * Math.PI - Math.PI;
+                state.setMousePosition(radius * Math.cos(angle), radius * Math.sin(angle));
+                buffer.putFloat((float) source.pursuitAngle(state));
+            }
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
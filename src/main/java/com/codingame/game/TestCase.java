@@ -0,0 +1,56 @@
+package com.codingame.game;
+
+/**
+ * Starting configuration of a game, as found on the first line of a test case:
+ * mouse x, mouse y, cat angle (radians) and cat speed.
+ */
+public class TestCase {
+    private final int mouseX;
+    private final int mouseY;
+    private final double catAngle;
+    private final int catSpeed;
+
+    public TestCase(int mouseX, int mouseY, double catAngle, int catSpeed) {
+        this.mouseX = mouseX;
+        this.mouseY = mouseY;
+        this.catAngle = catAngle;
+        this.catSpeed = catSpeed;
+    }
+
+    /** Parses a test case input line.
+     * The cat angle is read as a float, like the referee always did, so that
+     * a given line always yields the same starting angle.
+     * @param line whitespace separated "mouseX mouseY catAngle catSpeed"
+     * @return the parsed test case
+     */
+    public static TestCase parse(String line) {
+        String[] confInput = line.trim().split("\\s+");
+        return new TestCase(Integer.valueOf(confInput[0]), Integer.valueOf(confInput[1]),
+                Float.valueOf(confInput[2]), Integer.valueOf(confInput[3]));
+    }
+
+    public int getMouseX() {
+        return mouseX;
+    }
+
+    public int getMouseY() {
+        return mouseY;
+    }
+
+    public double getCatAngle() {
+        return catAngle;
+    }
+
+    public int getCatSpeed() {
+        return catSpeed;
+    }
+
+    public String toInputLine() {
+        return mouseX + " " + mouseY + " " + (float) catAngle + " " + catSpeed;
+    }
+
+    @Override
+    public String toString() {
+        return toInputLine();
+    }
+}
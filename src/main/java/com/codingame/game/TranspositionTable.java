@@ -0,0 +1,136 @@
+package com.codingame.game;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Fixed size map from long keys to long values, typically {@link StateKey} keys, for searches
+ * that meet the same states again. Lookups and stores allocate nothing and box nothing.
+ *
+ * Entries live in one buffer, on the heap or off it, as (key, value) pairs of longs. A key hashes
+ * to a bucket of {@link #BUCKET_SIZE} consecutive entries, scanned linearly. Storing a new key in
+ * a full bucket evicts the oldest entry of that bucket, so the table never grows past its
+ * capacity and recent entries win. Key 0 marks a free entry and cannot be stored.
+ * Not thread safe: give each search thread its own table.
+ */
+public final class TranspositionTable {
+    public static final int BUCKET_SIZE = 4;
+    private static final int ENTRY_BYTES = 2 * Long.BYTES;
+    private static final long EMPTY = 0;
+
+    private final ByteBuffer entries;
+    private final int bucketShift;
+    private final int capacity;
+    private int size;
+    private long evictions;
+
+    /**
+     * @param capacity number of entries, rounded up to a power of two, at most 2^26
+     * @param offHeap keep the entries in a direct buffer, out of the garbage collected heap
+     */
+    public TranspositionTable(int capacity, boolean offHeap) {
+        if (capacity < 1 || capacity > 1 << 26) {
+            throw new IllegalArgumentException("Capacity " + capacity + " out of [1, 2^26]");
+        }
+        int entryCount = Math.max(BUCKET_SIZE, Integer.highestOneBit(capacity - 1) << 1);
+        this.capacity = entryCount;
+        this.bucketShift = 64 - Integer.numberOfTrailingZeros(entryCount / BUCKET_SIZE);
+        int bytes = entryCount * ENTRY_BYTES;
+        this.entries = (offHeap ? ByteBuffer.allocateDirect(bytes) : ByteBuffer.allocate(bytes)).order(ByteOrder.nativeOrder());
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Entries dropped to make room since the table was created or cleared. */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public boolean isOffHeap() {
+        return entries.isDirect();
+    }
+
+    /**
+     * @return the value stored for the key, or missing when there is none
+     */
+    public long get(long key, long missing) {
+        int offset = bucket(key);
+        for (int i = 0; i < BUCKET_SIZE; i++, offset += ENTRY_BYTES) {
+            long stored = entries.getLong(offset);
+            if (stored == key) {
+                return entries.getLong(offset + Long.BYTES);
+            }
+            if (stored == EMPTY) {
+                return missing;
+            }
+        }
+        return missing;
+    }
+
+    public boolean contains(long key) {
+        int offset = bucket(key);
+        for (int i = 0; i < BUCKET_SIZE; i++, offset += ENTRY_BYTES) {
+            long stored = entries.getLong(offset);
+            if (stored == key) {
+                return true;
+            }
+            if (stored == EMPTY) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /** Stores the value, replacing the one of the same key or evicting the oldest entry of a full bucket. */
+    public void put(long key, long value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key 0 is reserved for free entries");
+        }
+        int start = bucket(key);
+        int offset = start;
+        for (int i = 0; i < BUCKET_SIZE; i++, offset += ENTRY_BYTES) {
+            long stored = entries.getLong(offset);
+            if (stored == key) {
+                entries.putLong(offset + Long.BYTES, value);
+                return;
+            }
+            if (stored == EMPTY) {
+                entries.putLong(offset, key);
+                entries.putLong(offset + Long.BYTES, value);
+                size++;
+                return;
+            }
+        }
+        // full bucket, oldest entry first: shift everything down one entry and append
+        for (int i = 1; i < BUCKET_SIZE; i++) {
+            int from = start + i * ENTRY_BYTES;
+            entries.putLong(from - ENTRY_BYTES, entries.getLong(from));
+            entries.putLong(from - ENTRY_BYTES + Long.BYTES, entries.getLong(from + Long.BYTES));
+        }
+        int last = start + (BUCKET_SIZE - 1) * ENTRY_BYTES;
+        entries.putLong(last, key);
+        entries.putLong(last + Long.BYTES, value);
+        evictions++;
+    }
+
+    public void clear() {
+        for (int offset = 0; offset < capacity * ENTRY_BYTES; offset += Long.BYTES) {
+            entries.putLong(offset, EMPTY);
+        }
+        size = 0;
+        evictions = 0;
+    }
+
+    /** Byte offset of the first entry of the key's bucket. */
+    private int bucket(long key) {
+        // Fibonacci hashing spreads the packed fields over the high bits
+        int index = bucketShift == 64 ? 0 : (int) ((key * 0x9E3779B97F4A7C15L) >>> bucketShift);
+        return index * BUCKET_SIZE * ENTRY_BYTES;
+    }
+}
@@ -0,0 +1,63 @@
+package com.codingame.game;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event committed by {@link TurnMetrics} at the end of every turn. Only loaded when the
+ * running JVM has the jdk.jfr API.
+ */
+@Name("com.codingame.game.Turn")
+@Label("Turn")
+@Category("Escaping the Cat")
+class TurnEvent extends jdk.jfr.Event {
+    @Label("Turn")
+    int turn;
+
+    @Label("Agent")
+    @Timespan
+    long agent;
+
+    @Label("Parse")
+    @Timespan
+    long parse;
+
+    @Label("Mouse move")
+    @Timespan
+    long mouseMove;
+
+    @Label("Escape solve")
+    @Timespan
+    long escapeSolve;
+
+    @Label("Cat pursuit")
+    @Timespan
+    long catPursuit;
+
+    @Label("View")
+    @Timespan
+    long view;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+
+    static void emit(int turn, long[] phases, long allocated) {
+        TurnEvent event = new TurnEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+        event.turn = turn;
+        event.agent = Math.max(0, phases[TurnMetrics.Phase.AGENT.ordinal()]);
+        event.parse = Math.max(0, phases[TurnMetrics.Phase.PARSE.ordinal()]);
+        event.mouseMove = Math.max(0, phases[TurnMetrics.Phase.MOUSE_MOVE.ordinal()]);
+        event.escapeSolve = Math.max(0, phases[TurnMetrics.Phase.ESCAPE_SOLVE.ordinal()]);
+        event.catPursuit = Math.max(0, phases[TurnMetrics.Phase.CAT_PURSUIT.ordinal()]);
+        event.view = Math.max(0, phases[TurnMetrics.Phase.VIEW.ordinal()]);
+        event.allocated = allocated;
+        event.commit();
+    }
+}
@@ -0,0 +1,65 @@
+package com.codingame.game;
+
+/**
+ * Geometry of one turn against the rim of the pool, as static kernels shared by every caller:
+ * {@link #firstCrossing} intersects the mouse step with the rim, {@link #pursuitAngle} gives the
+ * angle the cat has to run to reach the rim point the mouse heads to. They allocate nothing.
+ *
+ * Unlike the reference {@link Geometry} kernels, which round exactly like the original
+ * {@link Complex} code, this uses the numerically stable form of the quadratic and handles the
+ * degenerate cases, so no NaN ever comes out. It backs {@link MathMode#FAST}; the STRICT rules
+ * keep the reference kernels.
+ */
+public final class TurnGeometry {
+
+    private TurnGeometry() {
+    }
+
+    /** First t in (0, 1] with |p + t*d| = radius, or NaN when the step does not reach the circle.
+     * Solves A t^2 + 2 B t + C = 0 with q = -(B + sign(B) sqrt(B^2 - AC)), the roots being q/A
+     * and C/q, which never subtracts two close values. A step of length zero never crosses.
+     */
+    public static double firstCrossing(double px, double py, double dx, double dy, double radius) {
+        double a = dx * dx + dy * dy;
+        if (a == 0) {
+            return Double.NaN;
+        }
+        double b = px * dx + py * dy;
+        double c = px * px + py * py - radius * radius;
+        double delta = b * b - a * c;
+        if (delta < 0) {
+            return Double.NaN;
+        }
+        double q = -(b + Math.copySign(Math.sqrt(delta), b));
+        double tOne = q / a;
+        double tTwo = q != 0 ? c / q : tOne;
+        double first = Math.min(tOne, tTwo);
+        double second = Math.max(tOne, tTwo);
+        if (first > 0 && first <= 1) {
+            return first;
+        }
+        return second > 0 && second <= 1 ? second : Double.NaN;
+    }
+
+    /** Signed angle the cat wants to run toward the rim point closest to the mouse, straight out
+     * from the center, the cat angle decreasing by it as in {@link EscapeSimulator}.
+     * That rim point is where the reference pursuit casts a ray from the mouse to, so the cat
+     * turns toward it on the side given by the sign of the cross product. A mouse on the center
+     * has no such point: the angle is then 0.
+     */
+    public static double pursuitAngle(MathMode mathMode, double mouseX, double mouseY, double catX, double catY, double radius) {
+        double module = Geometry.module(mouseX, mouseY);
+        if (module == 0) {
+            return 0;
+        }
+        double scale = radius / module;
+        double gap = gap(mathMode, mouseX * scale, mouseY * scale, catX, catY, radius);
+        return catX * mouseY - catY * mouseX >= 0 ? -gap : gap;
+    }
+
+    private static double gap(MathMode mathMode, double rimX, double rimY, double catX, double catY, double radius) {
+        // the cat is on the rim already: the chord needs no normalisation of its position
+        double halfChord = Math.min(1, Geometry.dist(rimX, rimY, catX, catY) / (2 * radius));
+        return 2 * (mathMode == MathMode.FAST ? FastTrig.asin(halfChord) : Math.asin(halfChord));
+    }
+}
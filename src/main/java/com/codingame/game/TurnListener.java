@@ -0,0 +1,14 @@
+package com.codingame.game;
+
+/**
+ * Callback of {@link EscapeSimulator#play} after each turn.
+ */
+public interface TurnListener {
+
+    /**
+     * @param state state after the turn
+     * @param move what the agent answered this turn
+     * @param outcome outcome of the turn
+     */
+    void onTurn(GameState state, MouseMove move, Outcome outcome);
+}
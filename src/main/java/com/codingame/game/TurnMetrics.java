@@ -0,0 +1,221 @@
+package com.codingame.game;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Per turn timings of the referee phases and allocation counts, kept as histograms.
+ *
+ * One instance per game (or per worker thread) records turns with {@link #startTurn()},
+ * {@link #record(Phase, long)} and {@link #endTurn(int)}, then is merged into
+ * {@link #global()}, which is published over JMX. Every turn is also a JFR event
+ * (com.codingame.game.Turn) when a recording enables it.
+ */
+public class TurnMetrics implements TurnMetricsMXBean {
+    public static final String OBJECT_NAME = "com.codingame.game:type=TurnMetrics";
+
+    public enum Phase {
+        /** waiting for the player's answer */
+        AGENT,
+        PARSE,
+        MOUSE_MOVE,
+        ESCAPE_SOLVE,
+        CAT_PURSUIT,
+        VIEW
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+    private static final boolean JFR_AVAILABLE = isClassAvailable("jdk.jfr.Event");
+    private static final com.sun.management.ThreadMXBean ALLOCATIONS = allocationCounter();
+    private static volatile TurnMetrics global;
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+    private final LatencyHistogram allocations = new LatencyHistogram();
+    private final long[] current = new long[PHASES.length];
+    private long allocationStart;
+    private long games;
+
+    public TurnMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /** Batch wide metrics, registered as an MXBean on first use. */
+    public static TurnMetrics global() {
+        if (global == null) {
+            synchronized (TurnMetrics.class) {
+                if (global == null) {
+                    TurnMetrics metrics = new TurnMetrics();
+                    try {
+                        ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(OBJECT_NAME));
+                    } catch (JMException e) {
+                        System.err.println("TurnMetrics not published over JMX: " + e);
+                    }
+                    global = metrics;
+                }
+            }
+        }
+        return global;
+    }
+
+    public void startTurn() {
+        Arrays.fill(current, -1);
+        allocationStart = allocatedBytes();
+    }
+
+    /** Adds the time elapsed since start to the phase.
+     * @param start a previous value of System.nanoTime()
+     * @return the current System.nanoTime(), to chain the next phase
+     */
+    public long record(Phase phase, long start) {
+        long now = System.nanoTime();
+        int i = phase.ordinal();
+        current[i] = Math.max(0, current[i]) + now - start;
+        return now;
+    }
+
+    /** Records the phases seen since {@link #startTurn()}; phases not run this turn are left out. */
+    public void endTurn(int turn) {
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] >= 0) {
+                histograms[i].record(current[i]);
+            }
+        }
+        long allocated = ALLOCATIONS == null ? 0 : allocatedBytes() - allocationStart;
+        allocations.record(allocated);
+        if (JFR_AVAILABLE) {
+            TurnEvent.emit(turn, current, allocated);
+        }
+    }
+
+    public void endGame() {
+        games++;
+    }
+
+    /** Adds the other metrics to these ones. Safe to call concurrently on {@link #global()}. */
+    public synchronized void merge(TurnMetrics other) {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i].merge(other.histograms[i]);
+        }
+        allocations.merge(other.allocations);
+        games += other.games;
+    }
+
+    public LatencyHistogram getHistogram(Phase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+    public LatencyHistogram getAllocations() {
+        return allocations;
+    }
+
+    @Override
+    public synchronized long getGames() {
+        return games;
+    }
+
+    @Override
+    public synchronized long getTurns() {
+        return allocations.getCount();
+    }
+
+    @Override
+    public synchronized Map<String, Long> getMeanNanos() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Phase phase : PHASES) {
+            result.put(phase.name(), Math.round(getHistogram(phase).getMean()));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized Map<String, Long> getP50Nanos() {
+        return percentiles(0.5);
+    }
+
+    @Override
+    public synchronized Map<String, Long> getP99Nanos() {
+        return percentiles(0.99);
+    }
+
+    @Override
+    public synchronized Map<String, Long> getMaxNanos() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Phase phase : PHASES) {
+            result.put(phase.name(), getHistogram(phase).getMax());
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized double getMeanAllocatedBytes() {
+        return allocations.getMean();
+    }
+
+    @Override
+    public synchronized long getP99AllocatedBytes() {
+        return allocations.getPercentile(0.99);
+    }
+
+    @Override
+    public synchronized void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+        allocations.reset();
+        games = 0;
+    }
+
+    private Map<String, Long> percentiles(double fraction) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Phase phase : PHASES) {
+            result.put(phase.name(), getHistogram(phase).getPercentile(fraction));
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(games).append(" games, ").append(allocations.getCount()).append(" turns (ns)");
+        for (Phase phase : PHASES) {
+            LatencyHistogram histogram = getHistogram(phase);
+            if (histogram.getCount() > 0) {
+                sb.append("\n  ").append(phase).append(": ").append(histogram);
+            }
+        }
+        sb.append("\n  allocated bytes per turn: ").append(allocations);
+        return sb.toString();
+    }
+
+    private static long allocatedBytes() {
+        return ALLOCATIONS == null ? 0 : ALLOCATIONS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (!isClassAvailable("com.sun.management.ThreadMXBean")) {
+            return null;
+        }
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+            return (com.sun.management.ThreadMXBean) threads;
+        }
+        return null;
+    }
+
+    private static boolean isClassAvailable(String name) {
+        try {
+            Class.forName(name, false, TurnMetrics.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
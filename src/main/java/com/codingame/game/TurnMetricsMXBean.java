@@ -0,0 +1,27 @@
+package com.codingame.game;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link TurnMetrics#global()}, under {@link TurnMetrics#OBJECT_NAME}.
+ * Durations are in nanoseconds and keyed by {@link TurnMetrics.Phase} name.
+ */
+public interface TurnMetricsMXBean {
+    long getGames();
+
+    long getTurns();
+
+    Map<String, Long> getMeanNanos();
+
+    Map<String, Long> getP50Nanos();
+
+    Map<String, Long> getP99Nanos();
+
+    Map<String, Long> getMaxNanos();
+
+    double getMeanAllocatedBytes();
+
+    long getP99AllocatedBytes();
+
+    void reset();
+}
@@ -0,0 +1,81 @@
+import com.codingame.game.CatDifficulty;
+import com.codingame.game.CatPolicy;
+import com.codingame.game.EscapeSimulator;
+import com.codingame.game.GameState;
+import com.codingame.game.MathMode;
+import com.codingame.game.TableCatPolicy;
+
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Builds the table of a {@link TableCatPolicy} and checks it against the policy it was built from.
+ *
+ * Usage:
+ *   CatTableTool build FILE POLICY RADIUS_CELLS ANGLE_CELLS
+ *   CatTableTool check FILE POLICY [SAMPLES]
+ *
+ * POLICY is a difficulty (easy, normal or hard); only policies that depend on the positions alone
+ * table well, normal is the one to use. check draws random positions and prints the mean and
+ * largest difference between the table and the policy, in radians, and the time of a decision.
+ */
+public class CatTableTool {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            throw new IllegalArgumentException("Usage: CatTableTool build|check FILE POLICY ...");
+        }
+        CatPolicy source = CatDifficulty.parse(args[2], MathMode.STRICT);
+        switch (args[0]) {
+            case "build":
+                TableCatPolicy.build(source, Integer.parseInt(args[3]), Integer.parseInt(args[4]), Paths.get(args[1]));
+                break;
+            case "check":
+                check(new TableCatPolicy(Paths.get(args[1])), source, args.length > 3 ? Integer.parseInt(args[3]) : 1_000_000);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command " + args[0]);
+        }
+    }
+
+    private static void check(TableCatPolicy table, CatPolicy source, int samples) {
+        Random random = new Random(42);
+        int radius = EscapeSimulator.RADIUS_POOL;
+        GameState[] states = new GameState[samples];
+        for (int i = 0; i < samples; i++) {
+            GameState state = new GameState();
+            double mouseRadius = random.nextDouble() * radius;
+            double mouseAngle = random.nextDouble() * 2 * Math.PI;
+            double catAngle = random.nextDouble() * 2 * Math.PI;
+            state.setMousePosition(mouseRadius * Math.cos(mouseAngle), mouseRadius * Math.sin(mouseAngle));
+            state.setCatAngle(catAngle);
+            state.setCatPosition(Math.cos(catAngle) * radius, Math.sin(catAngle) * radius);
+            states[i] = state;
+        }
+
+        double total = 0;
+        double max = 0;
+        for (GameState state : states) {
+            double diff = Math.abs(table.pursuitAngle(state) - source.pursuitAngle(state));
+            // both sides of the mouse are the same run when it stands opposite to the cat
+            diff = Math.min(diff, Math.abs(2 * Math.PI - diff));
+            total += diff;
+            max = Math.max(max, diff);
+        }
+        System.out.printf("%d samples, table %dx%d: mean difference %.6f, max %.6f%n",
+                samples, table.getRadiusCells(), table.getAngleCells(), total / samples, max);
+
+        for (CatPolicy policy : new CatPolicy[] {source, table}) {
+            double sink = 0;
+            long start = System.nanoTime();
+            for (int round = 0; round < 5; round++) {
+                for (GameState state : states) {
+                    sink += policy.pursuitAngle(state);
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%s: %.1f ns per decision (%s)%n", policy.getClass().getSimpleName(),
+                    (double) elapsed / (5.0 * samples), sink == 42 ? "" : "ok");
+        }
+    }
+}
@@ -0,0 +1,77 @@
+import com.codingame.game.EscapeSimulator;
+import com.codingame.game.MouseAgent;
+import com.codingame.game.MouseMove;
+
+/**
+ * The classic strategy: circle inside the radius where the mouse turns faster than the cat
+ * until the cat is far enough behind, then dash for the rim.
+ * Only uses what a player sees, so it can run against the referee as well.
+ */
+public class OrbitAgent implements MouseAgent {
+    private static final int R = EscapeSimulator.RADIUS_POOL;
+    private static final int SPEED = EscapeSimulator.MOUSE_SPEED;
+
+    private final double orbitFactor;
+    private final double dashGap;
+    private final double dashOffset;
+    private double orbit;
+    private boolean dashing;
+    private int dashX;
+    private int dashY;
+
+    public OrbitAgent() {
+        this(0.5, 0.95 * Math.PI, 0);
+    }
+
+    /**
+     * @param orbitFactor orbit radius, as a fraction of the radius where the mouse and the cat have the same angular speed
+     * @param dashGap angle between the mouse and the cat (radians) from which the mouse dashes
+     * @param dashOffset angle between the dash and the radial direction, positive away from the cat
+     */
+    public OrbitAgent(double orbitFactor, double dashGap, double dashOffset) {
+        this.orbitFactor = orbitFactor;
+        this.dashGap = dashGap;
+        this.dashOffset = dashOffset;
+    }
+
+    public double getOrbitFactor() {
+        return orbitFactor;
+    }
+
+    public double getDashGap() {
+        return dashGap;
+    }
+
+    public double getDashOffset() {
+        return dashOffset;
+    }
+
+    @Override
+    public void init(int catSpeed) {
+        orbit = Math.min(orbitFactor * R * SPEED / catSpeed, R - 2 * SPEED);
+        dashing = false;
+    }
+
+    @Override
+    public void move(int mouseX, int mouseY, int catX, int catY, MouseMove move) {
+        double catAngle = Math.atan2(catY, catX);
+        double mouseAngle = mouseX == 0 && mouseY == 0 ? catAngle + Math.PI : Math.atan2(mouseY, mouseX);
+        double gap = Math.IEEEremainder(mouseAngle - catAngle, 2 * Math.PI);
+        double side = gap >= 0 ? 1 : -1;
+
+        if (!dashing && Math.abs(gap) >= dashGap) {
+            // once started, the dash keeps its target even if the cat closes the gap
+            double angle = mouseAngle + side * dashOffset;
+            dashX = (int) Math.round(mouseX + 2 * R * Math.cos(angle));
+            dashY = (int) Math.round(mouseY + 2 * R * Math.sin(angle));
+            dashing = true;
+        }
+        if (dashing) {
+            move.set(dashX, dashY);
+        }
+        else {
+            double angle = mouseAngle + side * SPEED / orbit;
+            move.set((int) Math.round(orbit * Math.cos(angle)), (int) Math.round(orbit * Math.sin(angle)));
+        }
+    }
+}
@@ -0,0 +1,403 @@
+import com.codingame.game.EscapeSimulator;
+import com.codingame.game.GameState;
+import com.codingame.game.MouseAgent;
+import com.codingame.game.Outcome;
+import com.codingame.game.TestCase;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resident referee: a warm JVM serving game requests on a localhost TCP port, so evaluation
+ * scripts stop paying a JVM start and a JIT warm up for every game.
+ *
+ * Usage:
+ *   RefereeDaemon [OPTIONS]
+ *
+ * Options:
+ *   --port N                 port on the loopback interface, 7788 by default
+ *   --threads N              games played at once, all cores by default
+ *   --warmup N               games played with SolutionAgent before accepting requests, 2000 by default
+ *   --first-timeout MS       time for the first answer of an agent process, 1000 by default
+ *   --timeout MS             time for every other answer, 50 by default
+ *   --agent NAME CLASS       serves the in-process MouseAgent CLASS as NAME, repeatable
+ *   --command NAME CMD       serves the agent process CMD as NAME, started afresh every game, repeatable
+ *   --warm-command NAME CMD  same, keeping the process between games, for agents following
+ *                            TournamentRunner's restart marker
+ *   --token TOKEN            secret clients must send first, a random one printed at startup by default
+ *
+ * Only the registered agents and commands can be played: a request names them, it never carries
+ * a class or a command line. A connection starts with the token line and is closed otherwise.
+ * Requests, one per line:
+ *   ID mouseX mouseY catAngle catSpeed agent NAME    in-process agent
+ *   ID mouseX mouseY catAngle catSpeed command NAME  agent process, as TournamentRunner plays it
+ *   shutdown                                         stops the daemon, see below
+ * ID is any token chosen by the client. Results are streamed back as games end, so possibly out
+ * of order, one line each:
+ *   ID outcome turns reason micros
+ * with reason "-" unless an agent process failed, or "ID ERROR message" for a bad request.
+ * A shutdown stops accepting connections and requests: every connection answers its later
+ * requests with "ID ERROR shutting down". The daemon then waits for the games already requested
+ * on all connections, answers them, closes the connections left open and stops the agent processes.
+ * Closing its output ends a connection once all its games are answered, e.g.
+ *   (echo "$TOKEN"; cat requests.txt) | nc -N localhost 7788
+ *
+ * Workers keep their agents between games: one instance per in-process agent, and one process
+ * per warm command, restarted with the usual initialisation line. Games follow the
+ * referee's rules. Unix domain sockets need Java 16, hence TCP, bound to the loopback address only.
+ */
+public class RefereeDaemon {
+    private final EscapeSimulator simulator = new EscapeSimulator();
+    private final ExecutorService workers;
+    private final long firstTimeout;
+    private final long timeout;
+    private final byte[] token;
+    private final Map<String, Class<? extends MouseAgent>> agentClasses = new HashMap<>();
+    private final Map<String, TournamentRunner.AgentSpec> commands = new HashMap<>();
+    private final ConcurrentLinkedQueue<Map<TournamentRunner.AgentSpec, TournamentRunner.AgentProcess>> pools = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Map<TournamentRunner.AgentSpec, TournamentRunner.AgentProcess>> processes = ThreadLocal.withInitial(() -> {
+        Map<TournamentRunner.AgentSpec, TournamentRunner.AgentProcess> map = new HashMap<>();
+        pools.add(map);
+        return map;
+    });
+    private final ThreadLocal<Map<Class<? extends MouseAgent>, MouseAgent>> agents = ThreadLocal.withInitial(HashMap::new);
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    /** guards stopping and playing */
+    private final Object lock = new Object();
+    private boolean stopping;
+    /** games requested and not answered yet, on all connections */
+    private int playing;
+    private ServerSocket server;
+
+    /**
+     * @param token secret every connection must send as its first line
+     */
+    public RefereeDaemon(String token, int threads, long firstTimeout, long timeout) {
+        if (token.isEmpty()) {
+            throw new IllegalArgumentException("The token cannot be empty");
+        }
+        this.token = token.getBytes(StandardCharsets.UTF_8);
+        this.workers = Executors.newFixedThreadPool(threads);
+        this.firstTimeout = firstTimeout;
+        this.timeout = timeout;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = 7788;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int warmup = 2000;
+        long firstTimeout = 1000;
+        long timeout = 50;
+        String token = null;
+        Map<String, String> agentClasses = new LinkedHashMap<>();
+        Map<String, String> commands = new LinkedHashMap<>();
+        Map<String, String> warmCommands = new LinkedHashMap<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "--first-timeout":
+                    firstTimeout = Long.parseLong(args[++i]);
+                    break;
+                case "--timeout":
+                    timeout = Long.parseLong(args[++i]);
+                    break;
+                case "--agent":
+                    agentClasses.put(args[++i], args[++i]);
+                    break;
+                case "--command":
+                    commands.put(args[++i], args[++i]);
+                    break;
+                case "--warm-command":
+                    warmCommands.put(args[++i], args[++i]);
+                    break;
+                case "--token":
+                    token = args[++i];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument " + args[i]);
+            }
+        }
+
+        if (token == null) {
+            byte[] secret = new byte[16];
+            new SecureRandom().nextBytes(secret);
+            token = new BigInteger(1, secret).toString(16);
+            System.err.println("token " + token);
+        }
+        RefereeDaemon daemon = new RefereeDaemon(token, threads, firstTimeout, timeout);
+        agentClasses.forEach(daemon::registerAgent);
+        commands.forEach((name, command) -> daemon.registerCommand(name, command, false));
+        warmCommands.forEach((name, command) -> daemon.registerCommand(name, command, true));
+        long start = System.nanoTime();
+        daemon.warmUp(warmup);
+        System.err.println("warmed up with " + warmup + " games in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        daemon.serve(port);
+    }
+
+    /** Serves an in-process agent under a name. Must be called before {@link #serve}. */
+    void registerAgent(String name, String className) {
+        try {
+            agentClasses.put(name, Class.forName(className).asSubclass(MouseAgent.class));
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IllegalArgumentException("Cannot serve agent " + className, e);
+        }
+    }
+
+    /** Serves an agent process under a name. Must be called before {@link #serve}.
+     * @param warm keep the process between games, see TournamentRunner
+     */
+    void registerCommand(String name, String command, boolean warm) {
+        commands.put(name, new TournamentRunner.AgentSpec(name, command, warm));
+    }
+
+    /** Plays games on the workers until the rules and the common agent code are compiled. */
+    void warmUp(int games) throws Exception {
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < games; i++) {
+            double angle = 2 * Math.PI * i / 97;
+            TestCase testCase = new TestCase((i * 37) % 400 - 200, (i * 53) % 400 - 200, (float) angle, 10 + i % 31);
+            futures.add(workers.submit(() -> playInProcess(SolutionAgent.class, testCase)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    /** Accepts connections until a shutdown request, one reading thread per connection. */
+    void serve(int port) throws IOException {
+        server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        System.err.println("listening on " + server.getLocalSocketAddress());
+        try {
+            while (true) {
+                Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (SocketException e) {
+                    // closed by a shutdown request
+                    break;
+                }
+                connections.add(socket);
+                Thread connection = new Thread(() -> handle(socket), "connection-" + socket.getPort());
+                connection.setDaemon(true);
+                connection.start();
+            }
+        } finally {
+            try {
+                synchronized (lock) {
+                    stopping = true;
+                    while (playing > 0) {
+                        lock.wait();
+                    }
+                }
+                workers.shutdown();
+                workers.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (Map<TournamentRunner.AgentSpec, TournamentRunner.AgentProcess> pool : pools) {
+                for (TournamentRunner.AgentProcess process : pool.values()) {
+                    process.kill();
+                }
+            }
+            // every game is answered, only idle clients are still connected
+            for (Socket socket : connections) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // the connection is gone anyway
+                }
+            }
+        }
+    }
+
+    /** Stops accepting connections and requests; {@link #serve} then drains the games already requested. */
+    private void stop() throws IOException {
+        synchronized (lock) {
+            stopping = true;
+        }
+        server.close();
+    }
+
+    private void handle(Socket socket) {
+        List<Future<?>> pending = new ArrayList<>();
+        try {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            String line = in.readLine();
+            if (line == null || !MessageDigest.isEqual(token, line.trim().getBytes(StandardCharsets.UTF_8))) {
+                out.write("ERROR bad token\n");
+                out.flush();
+                return;
+            }
+            while ((line = in.readLine()) != null) {
+                String request = line.trim();
+                if (request.isEmpty()) {
+                    continue;
+                }
+                if (request.equals("shutdown")) {
+                    stop();
+                    continue;
+                }
+                Future<?> game = submit(request, out);
+                if (game != null) {
+                    pending.add(game);
+                }
+                // forget the games already answered, a connection may send any number of requests
+                if (pending.size() >= 1024) {
+                    pending.removeIf(Future::isDone);
+                }
+            }
+            for (Future<?> future : pending) {
+                future.get();
+            }
+        } catch (Exception e) {
+            boolean closedByShutdown;
+            synchronized (lock) {
+                closedByShutdown = stopping && e instanceof SocketException;
+            }
+            if (!closedByShutdown) {
+                System.err.println("connection " + socket.getRemoteSocketAddress() + " failed: " + e);
+            }
+        } finally {
+            connections.remove(socket);
+            // answers are flushed one by one, closing the socket closes both streams
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // nothing left to send
+            }
+        }
+    }
+
+    /** Queues the game of a request, or answers it with an error once the daemon is stopping.
+     * @return the queued game, null when it was refused
+     */
+    private Future<?> submit(String request, Writer out) {
+        synchronized (lock) {
+            if (!stopping) {
+                playing++;
+                try {
+                    return workers.submit(() -> {
+                        try {
+                            answer(request, out);
+                        } finally {
+                            synchronized (lock) {
+                                playing--;
+                                lock.notifyAll();
+                            }
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    playing--;
+                }
+            }
+        }
+        reply(request.split("\\s+", 2)[0] + " ERROR shutting down", out);
+        return null;
+    }
+
+    /** Plays the game of a request and writes its result line. */
+    private void answer(String request, Writer out) {
+        String[] tokens = request.split("\\s+", 7);
+        String result;
+        try {
+            if (tokens.length < 7) {
+                throw new IllegalArgumentException("Expected ID mouseX mouseY catAngle catSpeed agent|command NAME");
+            }
+            TestCase testCase = TestCase.parse(tokens[1] + " " + tokens[2] + " " + tokens[3] + " " + tokens[4]);
+            long start = System.nanoTime();
+            String outcome;
+            switch (tokens[5]) {
+                case "agent":
+                    Class<? extends MouseAgent> type = agentClasses.get(tokens[6]);
+                    if (type == null) {
+                        throw new IllegalArgumentException("Unknown agent " + tokens[6]);
+                    }
+                    outcome = playInProcess(type, testCase);
+                    break;
+                case "command":
+                    TournamentRunner.AgentSpec spec = commands.get(tokens[6]);
+                    if (spec == null) {
+                        throw new IllegalArgumentException("Unknown command " + tokens[6]);
+                    }
+                    outcome = playProcess(spec, testCase);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown agent kind " + tokens[5]);
+            }
+            result = tokens[0] + " " + outcome + " " + (System.nanoTime() - start) / 1000;
+        } catch (IOException | RuntimeException e) {
+            result = tokens[0] + " ERROR " + String.valueOf(e.getMessage()).replace('\n', ' ');
+        }
+        reply(result, out);
+    }
+
+    private static void reply(String result, Writer out) {
+        try {
+            synchronized (out) {
+                out.write(result);
+                out.write('\n');
+                out.flush();
+            }
+        } catch (IOException e) {
+            // the client is gone, nobody waits for the result
+        }
+    }
+
+    /** @return "outcome turns reason" */
+    private String playInProcess(Class<? extends MouseAgent> type, TestCase testCase) {
+        Map<Class<? extends MouseAgent>, MouseAgent> workerAgents = agents.get();
+        MouseAgent agent = workerAgents.get(type);
+        if (agent == null) {
+            try {
+                agent = type.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Cannot create agent " + type.getName(), e);
+            }
+            workerAgents.put(type, agent);
+        }
+        GameState state = simulator.newGame(testCase);
+        Outcome outcome = simulator.play(state, agent);
+        return outcome + " " + state.getTurn() + " -";
+    }
+
+    /** @return "outcome turns reason" */
+    private String playProcess(TournamentRunner.AgentSpec spec, TestCase testCase) throws IOException {
+        TournamentRunner.GameResult result = TournamentRunner.play(spec, 0, testCase, processes.get(), firstTimeout, timeout);
+        return result.outcome + " " + result.turns + " " + result.reason;
+    }
+}
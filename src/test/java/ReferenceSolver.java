@@ -0,0 +1,238 @@
+import com.codingame.game.EscapeSimulator;
+import com.codingame.game.GameState;
+import com.codingame.game.MouseMove;
+import com.codingame.game.Outcome;
+import com.codingame.game.TestCase;
+import com.codingame.game.TurnListener;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Searches a winning sequence of targets for a test case, using the rules of the referee.
+ *
+ * Candidates are {@link OrbitAgent} parameter sets: a grid first, then random refinements around
+ * the best one until the time budget runs out. Candidates are evaluated on all cores and the
+ * fastest escape wins.
+ *
+ * Usage:
+ *   ReferenceSolver [--threads N] [--budget MILLIS] (--cases FILE | "mouseX mouseY catAngle catSpeed")
+ *
+ * Prints, per test case: the test case, the outcome, the turns to escape and the targets "x,y" of every turn.
+ */
+public class ReferenceSolver {
+    private static final double[] ORBIT_FACTORS = {0.2, 0.3, 0.4, 0.5, 0.6, 0.7, 0.8, 0.9};
+    private static final double[] DASH_GAPS = {0.6, 0.7, 0.8, 0.85, 0.9, 0.95, 0.99};
+    private static final double[] DASH_OFFSETS = {-0.4, -0.2, 0, 0.2, 0.4, 0.6, 0.8, 1.0};
+    private static final int REFINE_BATCH = 64;
+
+    private final ExecutorService executor;
+    private final int threads;
+
+    public ReferenceSolver(ExecutorService executor, int threads) {
+        this.executor = executor;
+        this.threads = threads;
+    }
+
+    public static class Plan {
+        private final TestCase testCase;
+        private final Candidate candidate;
+        private final int[] targets;
+
+        Plan(TestCase testCase, Candidate candidate, int[] targets) {
+            this.testCase = testCase;
+            this.candidate = candidate;
+            this.targets = targets;
+        }
+
+        public TestCase getTestCase() {
+            return testCase;
+        }
+
+        public Outcome getOutcome() {
+            return candidate.outcome;
+        }
+
+        public int getTurns() {
+            return candidate.turns;
+        }
+
+        public boolean isEscape() {
+            return candidate.outcome == Outcome.ESCAPED;
+        }
+
+        /** Targets of every turn, x and y interleaved. */
+        public int[] getTargets() {
+            return targets;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(testCase).append(' ').append(getOutcome()).append(' ').append(getTurns());
+            for (int i = 0; i < targets.length; i += 2) {
+                sb.append(' ').append(targets[i]).append(',').append(targets[i + 1]);
+            }
+            return sb.toString();
+        }
+    }
+
+    static class Candidate {
+        final double orbitFactor;
+        final double dashGap;
+        final double dashOffset;
+        Outcome outcome;
+        int turns;
+
+        Candidate(double orbitFactor, double dashGap, double dashOffset) {
+            this.orbitFactor = orbitFactor;
+            this.dashGap = dashGap;
+            this.dashOffset = dashOffset;
+        }
+
+        OrbitAgent agent() {
+            return new OrbitAgent(orbitFactor, dashGap * Math.PI, dashOffset);
+        }
+
+        /** Lower is better: escapes by turns, then everything else. */
+        int score() {
+            return outcome == Outcome.ESCAPED ? turns : Integer.MAX_VALUE;
+        }
+    }
+
+    /** Best sequence found for the test case within the budget. The grid is always evaluated in full. */
+    public Plan solve(TestCase testCase, long budgetMillis) throws Exception {
+        long deadline = System.currentTimeMillis() + budgetMillis;
+        Candidate best = evaluate(testCase, grid(), null);
+
+        Random random = new Random(testCase.toInputLine().hashCode());
+        double scale = 0.1;
+        while (System.currentTimeMillis() < deadline) {
+            List<Candidate> batch = new ArrayList<>(REFINE_BATCH);
+            for (int i = 0; i < REFINE_BATCH; i++) {
+                batch.add(new Candidate(
+                        clamp(best.orbitFactor + random.nextGaussian() * scale, 0.05, 1.5),
+                        clamp(best.dashGap + random.nextGaussian() * scale, 0.3, 1),
+                        best.dashOffset + random.nextGaussian() * scale));
+            }
+            best = evaluate(testCase, batch, best);
+            scale = Math.max(0.005, scale * 0.9);
+        }
+        return new Plan(testCase, best, targets(testCase, best));
+    }
+
+    /** Fewest turns to escape over the candidate grid, on the calling thread, or -1 when no candidate escapes. */
+    public static int minTurns(TestCase testCase) {
+        EscapeSimulator simulator = new EscapeSimulator();
+        GameState start = simulator.newGame(testCase);
+        GameState state = new GameState();
+        int best = -1;
+        for (Candidate candidate : grid()) {
+            Outcome outcome = simulator.play(state.restore(start), candidate.agent());
+            if (outcome == Outcome.ESCAPED && (best < 0 || state.getTurn() < best)) {
+                best = state.getTurn();
+            }
+        }
+        return best;
+    }
+
+    private static List<Candidate> grid() {
+        List<Candidate> grid = new ArrayList<>();
+        for (double orbitFactor : ORBIT_FACTORS) {
+            for (double dashGap : DASH_GAPS) {
+                for (double dashOffset : DASH_OFFSETS) {
+                    grid.add(new Candidate(orbitFactor, dashGap, dashOffset));
+                }
+            }
+        }
+        return grid;
+    }
+
+    private Candidate evaluate(TestCase testCase, List<Candidate> candidates, Candidate best) throws Exception {
+        int slice = (candidates.size() + threads - 1) / threads;
+        List<Future<Candidate>> futures = new ArrayList<>();
+        for (int from = 0; from < candidates.size(); from += slice) {
+            List<Candidate> part = candidates.subList(from, Math.min(candidates.size(), from + slice));
+            futures.add(executor.submit(() -> {
+                EscapeSimulator simulator = new EscapeSimulator();
+                Candidate partBest = null;
+                for (Candidate candidate : part) {
+                    GameState state = simulator.newGame(testCase);
+                    candidate.outcome = simulator.play(state, candidate.agent());
+                    candidate.turns = state.getTurn();
+                    if (partBest == null || candidate.score() < partBest.score()) {
+                        partBest = candidate;
+                    }
+                }
+                return partBest;
+            }));
+        }
+        for (Future<Candidate> future : futures) {
+            Candidate candidate = future.get();
+            if (best == null || candidate.score() < best.score()) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private static int[] targets(TestCase testCase, Candidate candidate) {
+        List<Integer> targets = new ArrayList<>();
+        EscapeSimulator simulator = new EscapeSimulator();
+        TurnListener listener = (GameState state, MouseMove move, Outcome outcome) -> {
+            targets.add(move.getTargetX());
+            targets.add(move.getTargetY());
+        };
+        simulator.play(simulator.newGame(testCase), candidate.agent(), listener);
+        int[] result = new int[targets.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = targets.get(i);
+        }
+        return result;
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        long budget = 1000;
+        List<TestCase> cases = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--budget":
+                    budget = Long.parseLong(args[++i]);
+                    break;
+                case "--cases":
+                    for (String line : Files.readAllLines(Paths.get(args[++i]), StandardCharsets.UTF_8)) {
+                        if (!line.trim().isEmpty()) {
+                            cases.add(TestCase.parse(line));
+                        }
+                    }
+                    break;
+                default:
+                    cases.add(TestCase.parse(args[i]));
+            }
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            ReferenceSolver solver = new ReferenceSolver(executor, threads);
+            for (TestCase testCase : cases) {
+                System.out.println(solver.solve(testCase, budget));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+import com.codingame.game.ReplayReader;
+
+import java.nio.file.Paths;
+
+/**
+ * Reads replay files written by SweepRunner --record.
+ *
+ * Usage:
+ *   ReplayTool FILE verify      replays every game through the rules and reports the ones not reproduced
+ *   ReplayTool FILE dump GAME   prints every turn of one game
+ */
+public class ReplayTool {
+    public static void main(String[] args) throws Exception {
+        try (ReplayReader reader = new ReplayReader(Paths.get(args[0]))) {
+            if ("dump".equals(args[1])) {
+                dump(reader.game(Integer.parseInt(args[2])));
+            }
+            else {
+                verify(reader);
+            }
+        }
+    }
+
+    private static void verify(ReplayReader reader) throws Exception {
+        int failures = 0;
+        for (int i = 0; i < reader.getGameCount(); i++) {
+            ReplayReader.Game game = reader.game(i);
+            int turn = game.verify();
+            if (turn >= 0) {
+                failures++;
+                System.out.println("game " + i + " (" + game.getTestCase() + ") differs at turn " + turn);
+            }
+        }
+        System.out.println(reader.getGameCount() + " games, " + failures + " not reproduced");
+    }
+
+    private static void dump(ReplayReader.Game game) {
+        System.out.println(game.getTestCase() + " " + game.getMathMode() + " " + game.getOutcome() + " in " + game.getTurns() + " turns");
+        for (int turn = 0; turn < game.getTurns(); turn++) {
+            System.out.println(turn
+                    + " target " + game.getTargetX(turn) + " " + game.getTargetY(turn)
+                    + " mouse " + game.getMouseX(turn) + " " + game.getMouseY(turn)
+                    + " cat " + game.getCatAngle(turn) + " (" + game.getCatX(turn) + " " + game.getCatY(turn) + ")"
+                    + " " + game.getOutcome(turn)
+                    + " \"" + game.getMessage(turn) + "\"");
+        }
+    }
+}
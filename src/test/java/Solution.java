@@ -1,22 +1,238 @@
-import java.util.Scanner;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 
+/**
+ * Reference agent and starter kit. Everything a player needs fits in this one file, as the
+ * CodinGame IDE wants it: replace {@link #move} with your own strategy.
+ *
+ * Input is read straight from the bytes of stdin, the answer is built in a byte buffer and
+ * written with one flush per turn. Debug output goes to stderr only every {@link #DEBUG_EVERY}
+ * turns, and every {@link #REPORT_EVERY} turns a report tells where the time of a turn went:
+ * waiting for the referee, thinking, or writing the answer.
+ *
+ * A line holding a single integer is an initialisation line. It may come again between turns
+ * when a tournament runner reuses the process for a new game; the agent then starts over.
+ */
 public class Solution {
-    public static void main(String args[]) {
-        Scanner in = new Scanner(System.in);
-        int catSpeed = in.nextInt();
-
-        // game loop
-        while (true) {
-            int mouseX = in.nextInt();
-            int mouseY = in.nextInt();
-            int catX = in.nextInt();
-            int catY = in.nextInt();
-            System.err.println(catX + " " + catY);
-
-            int difx = 2 * mouseX - catX;
-            int dify = 2 * mouseY - catY;
-            System.out.println(difx + " " + dify);
+    /** Debug line every N turns, 0 for none. */
+    private static final int DEBUG_EVERY = 0;
+    /** Timing report on stderr every N turns and at the end of the input, 0 for none. */
+    private static final int REPORT_EVERY = 0;
 
+    private static int catSpeed;
+
+    /** Strategy: run away from the cat, through the point symmetric to it around the mouse. */
+    private static void move(int mouseX, int mouseY, int catX, int catY, Answer answer) {
+        answer.target(2 * mouseX - catX, 2 * mouseY - catY);
+    }
+
+    /** Called at the start of every game. */
+    private static void init(int speed) {
+        catSpeed = speed;
+    }
+
+    public static void main(String args[]) throws IOException {
+        Input in = new Input(System.in);
+        // raw stdout: no PrintStream locking and no autoflush, the answer is flushed once per turn
+        Answer answer = new Answer(new FileOutputStream(FileDescriptor.out));
+        Timing timing = new Timing();
+        int[] values = new int[4];
+        int turn = 0;
+        int debugIn = DEBUG_EVERY;
+        int reportIn = REPORT_EVERY;
+
+        long waitStart = System.nanoTime();
+        int count;
+        while ((count = in.readLine(values)) >= 0) {
+            if (count == 1) {
+                init(values[0]);
+                turn = 0;
+                debugIn = DEBUG_EVERY;
+                reportIn = REPORT_EVERY;
+                waitStart = System.nanoTime();
+                continue;
+            }
+            if (count != 4) {
+                continue;
+            }
+            long thinkStart = System.nanoTime();
+            move(values[0], values[1], values[2], values[3], answer);
+            long writeStart = System.nanoTime();
+            answer.send();
+            long end = System.nanoTime();
+            timing.record(thinkStart - waitStart, writeStart - thinkStart, end - writeStart);
+            waitStart = end;
+            turn++;
+
+            // countdowns rather than turn % N, the constants may be 0
+            if (DEBUG_EVERY > 0 && --debugIn == 0) {
+                debugIn = DEBUG_EVERY;
+                System.err.println("turn " + turn + " speed " + catSpeed + " cat " + values[2] + " " + values[3]);
+            }
+            if (REPORT_EVERY > 0 && --reportIn == 0) {
+                reportIn = REPORT_EVERY;
+                timing.report();
+            }
+        }
+        if (REPORT_EVERY > 0) {
+            timing.report();
+        }
+    }
+
+    /** Buffered reader of whitespace separated integers, without Scanner, regex or String. */
+    static class Input {
+        private final InputStream stream;
+        private final byte[] buffer = new byte[1 << 13];
+        private int length;
+        private int position;
+
+        Input(InputStream stream) {
+            this.stream = stream;
+        }
+
+        private int read() throws IOException {
+            if (position == length) {
+                length = stream.read(buffer, 0, buffer.length);
+                position = 0;
+                if (length <= 0) {
+                    length = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        /** Reads the integers of the next non empty line, up to values.length of them.
+         * @return how many integers the line held, -1 at the end of the input
+         */
+        int readLine(int[] values) throws IOException {
+            int count = 0;
+            int c = read();
+            while (true) {
+                while (c == ' ' || c == '\r' || c == '\t') {
+                    c = read();
+                }
+                if (c == -1) {
+                    return count == 0 ? -1 : count;
+                }
+                if (c == '\n') {
+                    if (count > 0) {
+                        return count;
+                    }
+                    c = read();
+                    continue;
+                }
+                boolean negative = c == '-';
+                if (negative) {
+                    c = read();
+                }
+                int value = 0;
+                while (c >= '0' && c <= '9') {
+                    value = value * 10 + (c - '0');
+                    c = read();
+                }
+                if (count < values.length) {
+                    values[count] = negative ? -value : value;
+                }
+                count++;
+                // skip anything else up to the next separator
+                while (c != -1 && c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                    c = read();
+                }
+            }
+        }
+    }
+
+    /** The answer of a turn, "x y" and an optional message, written with a single write and flush. */
+    static class Answer {
+        /** the referee keeps that many characters of the message */
+        private static final int MESSAGE_LENGTH = 26;
+
+        private final OutputStream stream;
+        private final byte[] buffer = new byte[64];
+        private final byte[] message = new byte[MESSAGE_LENGTH];
+        private int messageLength;
+        private int length;
+
+        Answer(OutputStream stream) {
+            this.stream = stream;
+        }
+
+        void target(int x, int y) {
+            length = 0;
+            append(x);
+            buffer[length++] = ' ';
+            append(y);
+        }
+
+        /** Text shown in the viewer from now on, ASCII only, cut to what the referee keeps. */
+        void message(String text) {
+            messageLength = text == null ? 0 : Math.min(MESSAGE_LENGTH, text.length());
+            for (int i = 0; i < messageLength; i++) {
+                char c = text.charAt(i);
+                message[i] = (byte) (c < 128 ? c : '?');
+            }
+        }
+
+        private void append(int value) {
+            long remaining = value;
+            if (remaining < 0) {
+                buffer[length++] = '-';
+                remaining = -remaining;
+            }
+            int start = length;
+            do {
+                buffer[length++] = (byte) ('0' + remaining % 10);
+                remaining /= 10;
+            } while (remaining != 0);
+            for (int i = start, j = length - 1; i < j; i++, j--) {
+                byte b = buffer[i];
+                buffer[i] = buffer[j];
+                buffer[j] = b;
+            }
+        }
+
+        void send() throws IOException {
+            int end = length;
+            if (messageLength > 0) {
+                buffer[end++] = ' ';
+                System.arraycopy(message, 0, buffer, end, messageLength);
+                end += messageLength;
+            }
+            buffer[end++] = '\n';
+            stream.write(buffer, 0, end);
+            stream.flush();
+        }
+    }
+
+    /** Where the time of the turns went, in microseconds. */
+    static class Timing {
+        private long turns;
+        private long waitTotal;
+        private long thinkTotal;
+        private long thinkMax;
+        private long writeTotal;
+        private long writeMax;
+
+        void record(long wait, long think, long write) {
+            turns++;
+            waitTotal += wait;
+            thinkTotal += think;
+            thinkMax = Math.max(thinkMax, think);
+            writeTotal += write;
+            writeMax = Math.max(writeMax, write);
+        }
+
+        void report() {
+            if (turns == 0) {
+                return;
+            }
+            System.err.println(turns + " turns, mean/max us: wait " + waitTotal / turns / 1000
+                    + ", think " + thinkTotal / turns / 1000 + "/" + thinkMax / 1000
+                    + ", write " + writeTotal / turns / 1000 + "/" + writeMax / 1000);
         }
     }
 }
@@ -0,0 +1,18 @@
+import com.codingame.game.MouseAgent;
+import com.codingame.game.MouseMove;
+
+/**
+ * In-process port of {@link Solution}, used by the batch tools.
+ */
+public class SolutionAgent implements MouseAgent {
+    @Override
+    public void init(int catSpeed) {
+    }
+
+    @Override
+    public void move(int mouseX, int mouseY, int catX, int catY, MouseMove move) {
+        int difx = 2 * mouseX - catX;
+        int dify = 2 * mouseY - catY;
+        move.set(difx, dify);
+    }
+}
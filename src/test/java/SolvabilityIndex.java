@@ -0,0 +1,216 @@
+import com.codingame.game.EscapeSimulator;
+import com.codingame.game.TestCase;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Precomputed fewest turns to escape over a quantized grid of test cases:
+ * mouse position inside the pool, cat angle and cat speed.
+ * The index is a memory mapped file of one short per cell, so a query is one read.
+ *
+ * Usage:
+ *   SolvabilityIndex build FILE STEP ANGLES SPEED_MIN SPEED_MAX SPEED_STEP [THREADS]
+ *   SolvabilityIndex query FILE "mouseX mouseY catAngle catSpeed"
+ *   SolvabilityIndex heatmap FILE DIRECTORY
+ *
+ * heatmap writes one PGM image per cat speed: the brighter a mouse position,
+ * the more cat angles it can escape from.
+ */
+public class SolvabilityIndex {
+    /** No escape found in the candidate grid of ReferenceSolver. */
+    public static final int UNSOLVED = -1;
+    /** Mouse position outside the pool. */
+    public static final int OUTSIDE = -2;
+
+    private static final int MAGIC = 0x45544349;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    /** largest mapping, a whole number of planes; one MappedByteBuffer cannot exceed 2 GB */
+    private static final long MAX_CHUNK = 1L << 30;
+
+    /** the planes of cells, one plane per cat speed and angle, several planes per chunk */
+    private final MappedByteBuffer[] chunks;
+    private final int planesPerChunk;
+    private final int planeBytes;
+    private final int step;
+    private final int size;
+    private final int angles;
+    private final int speedMin;
+    private final int speedStep;
+    private final int speeds;
+
+    public SolvabilityIndex(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException(file + " is not a solvability index of version " + VERSION);
+            }
+            step = header.getInt(8);
+            size = header.getInt(12);
+            angles = header.getInt(16);
+            speedMin = header.getInt(20);
+            speedStep = header.getInt(24);
+            speeds = header.getInt(28);
+            planeBytes = planeBytes(size);
+            planesPerChunk = (int) (MAX_CHUNK / planeBytes);
+            long planes = (long) speeds * angles;
+            if (channel.size() < HEADER_SIZE + planes * planeBytes) {
+                throw new IOException(file + " is truncated");
+            }
+            chunks = new MappedByteBuffer[(int) ((planes + planesPerChunk - 1) / planesPerChunk)];
+            for (int i = 0; i < chunks.length; i++) {
+                long first = (long) i * planesPerChunk;
+                long length = Math.min(planesPerChunk, planes - first) * planeBytes;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * planeBytes, length);
+            }
+        }
+    }
+
+    /** Bytes of the cells of one cat speed and angle, rejecting grids whose plane does not fit in a chunk. */
+    private static int planeBytes(int size) {
+        long bytes = (long) Short.BYTES * size * size;
+        if (bytes > MAX_CHUNK) {
+            throw new IllegalArgumentException("Grid of " + size + "x" + size + " cells per plane is too fine");
+        }
+        return (int) bytes;
+    }
+
+    private short cell(int speed, int angle, int x, int y) {
+        int plane = speed * angles + angle;
+        return chunks[plane / planesPerChunk].getShort((plane % planesPerChunk) * planeBytes + Short.BYTES * (y * size + x));
+    }
+
+    /** Fewest turns to escape of the nearest cell, UNSOLVED or OUTSIDE. */
+    public int minTurns(int mouseX, int mouseY, double catAngle, int catSpeed) {
+        int x = Math.round((mouseX + EscapeSimulator.RADIUS_POOL) / (float) step);
+        int y = Math.round((mouseY + EscapeSimulator.RADIUS_POOL) / (float) step);
+        if (x < 0 || x >= size || y < 0 || y >= size) {
+            return OUTSIDE;
+        }
+        int angle = Math.floorMod((int) Math.round(catAngle * angles / (2 * Math.PI)), angles);
+        int speed = Math.round((catSpeed - speedMin) / (float) speedStep);
+        if (speed < 0 || speed >= speeds) {
+            throw new IllegalArgumentException("Cat speed " + catSpeed + " is not indexed");
+        }
+        return cell(speed, angle, x, y);
+    }
+
+    public int minTurns(TestCase testCase) {
+        return minTurns(testCase.getMouseX(), testCase.getMouseY(), testCase.getCatAngle(), testCase.getCatSpeed());
+    }
+
+    public static void build(Path file, int step, int angles, int speedMin, int speedMax, int speedStep, int threads)
+            throws Exception {
+        int radius = EscapeSimulator.RADIUS_POOL;
+        int size = 2 * radius / step + 1;
+        int speeds = (speedMax - speedMin) / speedStep + 1;
+        int planeBytes = planeBytes(size);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(step).putInt(size).putInt(angles)
+                .putInt(speedMin).putInt(speedStep).putInt(speeds).clear();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header, 0);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int speed = 0; speed < speeds; speed++) {
+                for (int angle = 0; angle < angles; angle++) {
+                    int catSpeed = speedMin + speed * speedStep;
+                    double catAngle = (float) (2 * Math.PI * angle / angles);
+                    long position = HEADER_SIZE + ((long) speed * angles + angle) * planeBytes;
+                    futures.add(executor.submit(() -> {
+                        // each task fills and writes its own plane, only the running ones are in memory
+                        ByteBuffer plane = ByteBuffer.allocate(planeBytes);
+                        for (int y = 0; y < size; y++) {
+                            for (int x = 0; x < size; x++) {
+                                int mouseX = x * step - radius;
+                                int mouseY = y * step - radius;
+                                int turns = mouseX * mouseX + mouseY * mouseY < radius * radius
+                                        ? ReferenceSolver.minTurns(new TestCase(mouseX, mouseY, catAngle, catSpeed))
+                                        : OUTSIDE;
+                                plane.putShort((short) turns);
+                            }
+                        }
+                        plane.flip();
+                        writeFully(channel, plane, position);
+                        return null;
+                    }));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    /** Writes speed-CATSPEED.pgm per cat speed, gray level = share of cat angles with an escape. */
+    public void exportHeatmaps(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (int speed = 0; speed < speeds; speed++) {
+            Path image = directory.resolve("speed-" + (speedMin + speed * speedStep) + ".pgm");
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(image, StandardCharsets.US_ASCII))) {
+                out.println("P2");
+                out.println(size + " " + size);
+                out.println(angles);
+                // image rows go down, y goes up
+                for (int y = size - 1; y >= 0; y--) {
+                    StringBuilder row = new StringBuilder();
+                    for (int x = 0; x < size; x++) {
+                        int solvable = 0;
+                        for (int angle = 0; angle < angles; angle++) {
+                            if (cell(speed, angle, x, y) >= 0) {
+                                solvable++;
+                            }
+                        }
+                        row.append(solvable).append(' ');
+                    }
+                    out.println(row.toString().trim());
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path file = Paths.get(args[1]);
+        switch (args[0]) {
+            case "build":
+                int threads = args.length > 7 ? Integer.parseInt(args[7]) : Runtime.getRuntime().availableProcessors();
+                build(file, Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                        Integer.parseInt(args[4]), Integer.parseInt(args[5]), Integer.parseInt(args[6]), threads);
+                break;
+            case "query":
+                TestCase testCase = TestCase.parse(args[2]);
+                int turns = new SolvabilityIndex(file).minTurns(testCase);
+                System.out.println(testCase + " " + (turns == UNSOLVED ? "UNSOLVED" : turns == OUTSIDE ? "OUTSIDE" : turns + " turns"));
+                break;
+            case "heatmap":
+                new SolvabilityIndex(file).exportHeatmaps(Paths.get(args[2]));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command " + args[0]);
+        }
+    }
+}
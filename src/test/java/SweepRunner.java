@@ -0,0 +1,316 @@
+import com.codingame.game.AnalyticCatPolicy;
+import com.codingame.game.CatDifficulty;
+import com.codingame.game.DivergenceChecker;
+import com.codingame.game.EscapeSimulator;
+import com.codingame.game.GameConfig;
+import com.codingame.game.GameState;
+import com.codingame.game.MathMode;
+import com.codingame.game.MouseAgent;
+import com.codingame.game.Outcome;
+import com.codingame.game.ReplayRecorder;
+import com.codingame.game.ResultCache;
+import com.codingame.game.TestCase;
+import com.codingame.game.TurnMetrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Runs an in-process agent against many test cases on all cores, without the game engine.
+ *
+ * Usage:
+ *   SweepRunner [OPTIONS] --cases FILE
+ *   SweepRunner [OPTIONS] --grid STEP ANGLES SPEED_MIN SPEED_MAX SPEED_STEP
+ *
+ * Options:
+ *   --agent CLASS      MouseAgent implementation, SolutionAgent by default
+ *   --threads N        worker threads, all cores by default
+ *   --math strict|fast MathMode of the rules, strict by default
+ *   --check-fast       play each case in both math modes and report where they diverge, with the
+ *                      same --cat and --early-stop; cannot be combined with --record or --cache
+ *   --record FILE      append every game to a binary replay file, see ReplayTool
+ *   --metrics          time the agent and rules phases of every turn, summary on stderr and over JMX
+ *   --early-stop       end a game with NO_ESCAPE as soon as the mouse provably cannot escape
+ *   --cat POLICY       easy, normal (the referee's cat, default), hard or table:FILE, see CatDifficulty;
+ *                      --record needs the normal cat, the one ReplayTool verifies replays against
+ *   --cache FILE       reuse the results of the games already played by the same agent on the same
+ *                      rules, see ResultCache; cached games are neither recorded nor timed
+ *   --cache-size MB    size bound of the cache file, 256 MB by default
+ *   --agent-artifact PATH  jar or directory whose content keys the cache, the agent class file by default
+ *
+ * --cases reads one test case input line ("mouseX mouseY catAngle catSpeed") per line.
+ * --grid uses every mouse position inside the pool on a STEP pixel grid, ANGLES cat angles
+ * evenly spread on the rim, and every cat speed from SPEED_MIN to SPEED_MAX.
+ *
+ * One line per case is written to stdout, in input order:
+ *   index mouseX mouseY catAngle catSpeed outcome turns finalMouseX finalMouseY finalCatX finalCatY
+ * or with --check-fast:
+ *   index mouseX mouseY catAngle catSpeed strictOutcome strictTurns fastOutcome fastTurns
+ *   firstInputDivergence firstOutcomeDivergence
+ */
+public class SweepRunner {
+    private static final int CHUNK_SIZE = 256;
+
+    public static void main(String[] args) throws Exception {
+        String agentClass = SolutionAgent.class.getName();
+        int threads = Runtime.getRuntime().availableProcessors();
+        MathMode mathMode = MathMode.STRICT;
+        boolean checkFast = false;
+        String recordFile = null;
+        boolean metrics = false;
+        boolean earlyStop = false;
+        String cat = null;
+        String cacheFile = null;
+        long cacheSize = 256L << 20;
+        String agentArtifact = null;
+        List<TestCase> cases = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--agent":
+                    agentClass = args[++i];
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--math":
+                    mathMode = MathMode.valueOf(args[++i].toUpperCase());
+                    break;
+                case "--check-fast":
+                    checkFast = true;
+                    break;
+                case "--record":
+                    recordFile = args[++i];
+                    break;
+                case "--metrics":
+                    metrics = true;
+                    break;
+                case "--early-stop":
+                    earlyStop = true;
+                    break;
+                case "--cat":
+                    cat = args[++i];
+                    break;
+                case "--cache":
+                    cacheFile = args[++i];
+                    break;
+                case "--cache-size":
+                    cacheSize = Long.parseLong(args[++i]) << 20;
+                    break;
+                case "--agent-artifact":
+                    agentArtifact = args[++i];
+                    break;
+                case "--cases":
+                    cases = readCases(args[++i]);
+                    break;
+                case "--grid":
+                    cases = grid(Integer.parseInt(args[i + 1]), Integer.parseInt(args[i + 2]),
+                            Integer.parseInt(args[i + 3]), Integer.parseInt(args[i + 4]), Integer.parseInt(args[i + 5]));
+                    i += 5;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument " + args[i]);
+            }
+        }
+        if (cases == null) {
+            throw new IllegalArgumentException("Either --cases or --grid is required");
+        }
+
+        Class<? extends MouseAgent> agentType = Class.forName(agentClass).asSubclass(MouseAgent.class);
+        Supplier<MouseAgent> agents = () -> {
+            try {
+                return agentType.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot create agent " + agentType.getName(), e);
+            }
+        };
+        if (checkFast && (recordFile != null || cacheFile != null)) {
+            throw new IllegalArgumentException("--check-fast plays its own games, it cannot --record nor --cache them");
+        }
+        GameConfig config = config(mathMode, cat, earlyStop);
+        if (recordFile != null && !(config.getCatPolicy() instanceof AnalyticCatPolicy)) {
+            throw new IllegalArgumentException("--record needs the normal cat: replays are verified against it");
+        }
+        EscapeSimulator simulator = new EscapeSimulator(config);
+        DivergenceChecker checker = checkFast
+                ? new DivergenceChecker(config(MathMode.STRICT, cat, earlyStop), config(MathMode.FAST, cat, earlyStop))
+                : null;
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
+        long start = System.nanoTime();
+        ReplayRecorder recorder = recordFile == null ? null : new ReplayRecorder(Paths.get(recordFile));
+        CachedAgent cache = null;
+        if (cacheFile != null) {
+            byte[] digest = agentArtifact != null ? ResultCache.digest(Paths.get(agentArtifact)) : ResultCache.digest(agentType);
+            cache = new CachedAgent(new ResultCache(Paths.get(cacheFile), cacheSize),
+                    new ResultCache.KeySpace(simulator.getConfig(), digest));
+        }
+        try {
+            run(cases, agents, simulator, checker, recorder, metrics, cache, threads, out);
+        } finally {
+            if (recorder != null) {
+                recorder.close();
+            }
+            if (cache != null) {
+                cache.results.close();
+            }
+        }
+        out.flush();
+        System.err.println(cases.size() + " cases in " + (System.nanoTime() - start) / 1_000_000 + " ms on " + threads + " threads");
+        if (metrics) {
+            System.err.println(TurnMetrics.global());
+        }
+        if (cache != null) {
+            System.err.println("cache: " + cache.results.getHits() + " hits, " + cache.results.getMisses() + " misses, "
+                    + cache.results.size() + " results, " + cache.results.getEvictions() + " evicted");
+        }
+    }
+
+    /** Result cache and the digest of the swept agent. */
+    static class CachedAgent {
+        final ResultCache results;
+        final ResultCache.KeySpace keys;
+
+        CachedAgent(ResultCache results, ResultCache.KeySpace keys) {
+            this.results = results;
+            this.keys = keys;
+        }
+    }
+
+    /** Runs the cases in chunks on a fixed pool, writing results in input order.
+     * At most a few chunks per thread are in flight, so memory stays bounded whatever the sweep size.
+     * @param checker compares both math modes instead of playing the simulator's games, may be null
+     * @param cache read and filled when there is one, may be null
+     */
+    static void run(List<TestCase> cases, Supplier<MouseAgent> agents, EscapeSimulator simulator, DivergenceChecker checker,
+            ReplayRecorder recorder, boolean metrics, CachedAgent cache, int threads, Writer out) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Deque<Future<String>> pending = new ArrayDeque<>();
+            for (int from = 0; from < cases.size(); from += CHUNK_SIZE) {
+                int chunkStart = from;
+                int chunkEnd = Math.min(cases.size(), from + CHUNK_SIZE);
+                pending.add(executor.submit(() -> checker != null
+                        ? checkChunk(cases, chunkStart, chunkEnd, agents, checker)
+                        : runChunk(cases, chunkStart, chunkEnd, agents, simulator, recorder, metrics, cache)));
+                if (pending.size() >= threads * 4) {
+                    out.write(pending.poll().get());
+                }
+            }
+            while (!pending.isEmpty()) {
+                out.write(pending.poll().get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static String runChunk(List<TestCase> cases, int from, int to, Supplier<MouseAgent> agents,
+            EscapeSimulator simulator, ReplayRecorder recorder, boolean metrics, CachedAgent cache) throws IOException {
+        TurnMetrics chunkMetrics = metrics ? new TurnMetrics() : null;
+        ReplayRecorder.Recording recording = recorder == null ? null : recorder.newRecording();
+        StringBuilder sb = new StringBuilder((to - from) * 64);
+        for (int i = from; i < to; i++) {
+            TestCase testCase = cases.get(i);
+            GameState state = simulator.newGame(testCase);
+            ResultCache.Key key = cache == null ? null : cache.keys.key(testCase);
+            Outcome cached = key == null ? null : cache.results.get(key, state);
+            String outcome;
+            if (cached != null) {
+                outcome = cached.name();
+            } else {
+                if (recording != null) {
+                    recording.start(testCase, simulator.getMathMode());
+                }
+                try {
+                    Outcome result = simulator.play(state, agents.get(), recording, chunkMetrics);
+                    if (recording != null) {
+                        recording.finish(result, state.getTurn());
+                    }
+                    if (key != null) {
+                        cache.results.put(key, result, state);
+                    }
+                    outcome = result.name();
+                } catch (RuntimeException e) {
+                    outcome = "ERROR";
+                }
+            }
+            sb.append(i).append(' ')
+                    .append(testCase.toInputLine()).append(' ')
+                    .append(outcome).append(' ')
+                    .append(state.getTurn()).append(' ')
+                    .append(state.getMouseXInt()).append(' ').append(state.getMouseYInt()).append(' ')
+                    .append(state.getCatXInt()).append(' ').append(state.getCatYInt()).append('\n');
+        }
+        if (chunkMetrics != null) {
+            TurnMetrics.global().merge(chunkMetrics);
+        }
+        return sb.toString();
+    }
+
+    private static String checkChunk(List<TestCase> cases, int from, int to, Supplier<MouseAgent> agents,
+            DivergenceChecker checker) {
+        StringBuilder sb = new StringBuilder((to - from) * 64);
+        for (int i = from; i < to; i++) {
+            TestCase testCase = cases.get(i);
+            DivergenceChecker.Divergence divergence = checker.check(testCase, agents);
+            sb.append(i).append(' ')
+                    .append(testCase.toInputLine()).append(' ')
+                    .append(divergence.getStrictOutcome()).append(' ')
+                    .append(divergence.getStrictTurns()).append(' ')
+                    .append(divergence.getFastOutcome()).append(' ')
+                    .append(divergence.getFastTurns()).append(' ')
+                    .append(divergence.getFirstInputDivergence()).append(' ')
+                    .append(divergence.getFirstOutcomeDivergence()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static GameConfig config(MathMode mathMode, String cat, boolean earlyStop) throws IOException {
+        GameConfig config = new GameConfig(mathMode);
+        if (cat != null) {
+            config = config.withCatPolicy(CatDifficulty.parse(cat, mathMode));
+        }
+        return config.withEarlyTermination(earlyStop);
+    }
+
+    static List<TestCase> readCases(String file) throws IOException {
+        List<TestCase> cases = new ArrayList<>();
+        for (String line : Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8)) {
+            if (!line.trim().isEmpty()) {
+                cases.add(TestCase.parse(line));
+            }
+        }
+        return cases;
+    }
+
+    private static List<TestCase> grid(int step, int angles, int speedMin, int speedMax, int speedStep) {
+        List<TestCase> cases = new ArrayList<>();
+        int radius = EscapeSimulator.RADIUS_POOL;
+        for (int speed = speedMin; speed <= speedMax; speed += speedStep) {
+            for (int a = 0; a < angles; a++) {
+                double catAngle = 2 * Math.PI * a / angles;
+                for (int x = -radius + step; x < radius; x += step) {
+                    for (int y = -radius + step; y < radius; y += step) {
+                        if (x * x + y * y < radius * radius) {
+                            cases.add(new TestCase(x, y, (float) catAngle, speed));
+                        }
+                    }
+                }
+            }
+        }
+        return cases;
+    }
+}
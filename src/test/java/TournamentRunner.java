@@ -0,0 +1,342 @@
+import com.codingame.game.EscapeSimulator;
+import com.codingame.game.GameState;
+import com.codingame.game.MouseMove;
+import com.codingame.game.Outcome;
+import com.codingame.game.ProtocolCodec;
+import com.codingame.game.TestCase;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays every test case with every agent through the text protocol, optionally keeping agent
+ * processes warm between games, and prints a leaderboard.
+ *
+ * Usage:
+ *   TournamentRunner [OPTIONS] --cases FILE AGENT [AGENT ...]
+ *
+ * Options:
+ *   --agent NAME COMMAND       agent started afresh for every game
+ *   --warm-agent NAME COMMAND  agent following the restart marker below: one process per worker
+ *                              plays game after game
+ *   --threads N                games played at once, all cores by default
+ *   --first-timeout MS         time for the first answer of a process, 1000 by default
+ *   --timeout MS               time for every other answer, 50 by default
+ *   --results FILE             also write one line per game: agent case outcome turns reason
+ *
+ * Every AGENT is an --agent or a --warm-agent option. COMMAND is split on spaces,
+ * e.g. "java -cp target/test-classes Solution".
+ *
+ * Restart marker: every game starts with the usual initialisation line, the cat speed alone.
+ * A warm agent that reads a line with one integer where it expects the four of a turn starts a
+ * new game. An ordinary player would take that line for turn data and play on with a corrupted
+ * input, so only agents known to handle it, such as Solution, may be declared warm. A process that crashes, times out or answers badly is killed, and the next game
+ * gets a new one. Turns are played as by the referee, with {@link ProtocolCodec} on both ways.
+ *
+ * Java 8 has no virtual threads: games run on a fixed pool of platform threads, each owning its
+ * processes, and every process has a daemon thread blocked on its output.
+ */
+public class TournamentRunner {
+
+    public static void main(String[] args) throws Exception {
+        List<AgentSpec> agents = new ArrayList<>();
+        int threads = Runtime.getRuntime().availableProcessors();
+        long firstTimeout = 1000;
+        long timeout = 50;
+        String resultsFile = null;
+        List<TestCase> cases = null;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--agent":
+                    agents.add(new AgentSpec(args[i + 1], args[i + 2], false));
+                    i += 2;
+                    break;
+                case "--warm-agent":
+                    agents.add(new AgentSpec(args[i + 1], args[i + 2], true));
+                    i += 2;
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--first-timeout":
+                    firstTimeout = Long.parseLong(args[++i]);
+                    break;
+                case "--timeout":
+                    timeout = Long.parseLong(args[++i]);
+                    break;
+                case "--results":
+                    resultsFile = args[++i];
+                    break;
+                case "--cases":
+                    cases = SweepRunner.readCases(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument " + args[i]);
+            }
+        }
+        if (cases == null || agents.isEmpty()) {
+            throw new IllegalArgumentException("--cases and at least one agent are required");
+        }
+
+        long start = System.nanoTime();
+        List<GameResult> results = run(agents, cases, threads, firstTimeout, timeout);
+        if (resultsFile != null) {
+            try (Writer out = Files.newBufferedWriter(Paths.get(resultsFile), StandardCharsets.UTF_8)) {
+                for (GameResult result : results) {
+                    out.write(result.agent + " " + result.caseIndex + " " + result.outcome + " " + result.turns
+                            + " " + result.reason + "\n");
+                }
+            }
+        }
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+        printLeaderboard(agents, results, out);
+        out.flush();
+        System.err.println(results.size() + " games in " + (System.nanoTime() - start) / 1_000_000 + " ms on " + threads + " threads");
+    }
+
+    static class AgentSpec {
+        final String name;
+        final List<String> command;
+        final boolean warm;
+
+        AgentSpec(String name, String command, boolean warm) {
+            this.name = name;
+            this.command = Arrays.asList(command.trim().split("\\s+"));
+            this.warm = warm;
+        }
+    }
+
+    static class GameResult {
+        final String agent;
+        final int caseIndex;
+        final Outcome outcome;
+        final int turns;
+        /** why the agent lost outside the rules: timeout, crash or bad output; "-" otherwise */
+        final String reason;
+        final long nanos;
+
+        GameResult(String agent, int caseIndex, Outcome outcome, int turns, String reason, long nanos) {
+            this.agent = agent;
+            this.caseIndex = caseIndex;
+            this.outcome = outcome;
+            this.turns = turns;
+            this.reason = reason;
+            this.nanos = nanos;
+        }
+    }
+
+    /** Plays all games, agents times cases, and returns the results in that order. */
+    public static List<GameResult> run(List<AgentSpec> agents, List<TestCase> cases, int threads,
+            long firstTimeout, long timeout) throws Exception {
+        ConcurrentLinkedQueue<Map<AgentSpec, AgentProcess>> pools = new ConcurrentLinkedQueue<>();
+        ThreadLocal<Map<AgentSpec, AgentProcess>> processes = ThreadLocal.withInitial(() -> {
+            Map<AgentSpec, AgentProcess> map = new HashMap<>();
+            pools.add(map);
+            return map;
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<GameResult>> futures = new ArrayList<>();
+            for (AgentSpec agent : agents) {
+                for (int i = 0; i < cases.size(); i++) {
+                    int caseIndex = i;
+                    futures.add(executor.submit(() -> play(agent, caseIndex, cases.get(caseIndex),
+                            processes.get(), firstTimeout, timeout)));
+                }
+            }
+            List<GameResult> results = new ArrayList<>(futures.size());
+            for (Future<GameResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+            for (Map<AgentSpec, AgentProcess> pool : pools) {
+                for (AgentProcess process : pool.values()) {
+                    process.kill();
+                }
+            }
+        }
+    }
+
+    static GameResult play(AgentSpec agent, int caseIndex, TestCase testCase,
+            Map<AgentSpec, AgentProcess> processes, long firstTimeout, long timeout) throws IOException {
+        long start = System.nanoTime();
+        AgentProcess process = processes.get(agent);
+        if (process == null) {
+            process = new AgentProcess(agent.command);
+            processes.put(agent, process);
+        }
+        EscapeSimulator simulator = new EscapeSimulator();
+        ProtocolCodec codec = new ProtocolCodec();
+        MouseMove move = new MouseMove();
+        GameState state = simulator.newGame(testCase);
+        Outcome outcome = Outcome.OUT_OF_TURNS;
+        String reason = "-";
+        try {
+            process.send(codec.formatInit(state));
+            while (state.getTurn() < EscapeSimulator.MAX_TURNS) {
+                process.send(codec.formatTurn(state));
+                String line = process.read(process.isFresh() ? firstTimeout : timeout);
+                String error = line == null ? "Timeout!" : codec.parseOutput(line, move);
+                if (error != null) {
+                    outcome = Outcome.CAUGHT;
+                    reason = error.replace(' ', '_');
+                    break;
+                }
+                Outcome turnOutcome = simulator.step(state, move.getTargetX(), move.getTargetY());
+                if (turnOutcome != Outcome.RUNNING) {
+                    outcome = turnOutcome;
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            // the process died: it would not have answered either
+            outcome = Outcome.CAUGHT;
+            reason = ProtocolCodec.NO_OUTPUT.replace(' ', '_');
+        }
+        if (!agent.warm || !"-".equals(reason)) {
+            // killing is asynchronous: forget the process now rather than trust isAlive
+            process.kill();
+            processes.remove(agent);
+        }
+        return new GameResult(agent.name, caseIndex, outcome, state.getTurn(), reason, System.nanoTime() - start);
+    }
+
+    /** A player process with its output read line by line on a daemon thread, so reads can time out. */
+    static class AgentProcess {
+        private static final String EOF = new String("EOF");
+        private static final File NO_ERRORS = new File(System.getProperty("os.name").startsWith("Windows") ? "NUL" : "/dev/null");
+
+        private final Process process;
+        private final Writer input;
+        private final BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        private boolean fresh = true;
+
+        AgentProcess(List<String> command) throws IOException {
+            process = new ProcessBuilder(command)
+                    .redirectError(ProcessBuilder.Redirect.to(NO_ERRORS))
+                    .start();
+            input = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+            Thread reader = new Thread(() -> {
+                try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = output.readLine()) != null) {
+                        lines.add(line);
+                    }
+                } catch (IOException e) {
+                    // the process is gone, same as the end of its output
+                }
+                lines.add(EOF);
+            }, "agent-output");
+            reader.setDaemon(true);
+            reader.start();
+        }
+
+        /** Whether the process has not answered yet, and so still gets the first turn timeout. */
+        boolean isFresh() {
+            return fresh;
+        }
+
+        void send(String line) throws IOException {
+            input.write(line);
+            input.write('\n');
+            input.flush();
+        }
+
+        /**
+         * @return the next line, or null after the timeout
+         * @throws IOException when the process ended
+         */
+        String read(long timeoutMillis) throws IOException {
+            String line;
+            try {
+                line = lines.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted", e);
+            }
+            if (line == EOF) {
+                lines.add(EOF);
+                throw new IOException("Agent process ended");
+            }
+            if (line != null) {
+                fresh = false;
+            }
+            return line;
+        }
+
+        void kill() {
+            process.destroyForcibly();
+        }
+    }
+
+    /** Ranks agents by escapes, then by the mean number of turns of their escapes. */
+    static void printLeaderboard(List<AgentSpec> agents, List<GameResult> results, PrintWriter out) {
+        Map<String, long[]> stats = new LinkedHashMap<>();
+        // games, escapes, escape turns, caught, out of turns, failures, nanos
+        for (AgentSpec agent : agents) {
+            stats.put(agent.name, new long[7]);
+        }
+        for (GameResult result : results) {
+            long[] s = stats.get(result.agent);
+            s[0]++;
+            if (result.outcome == Outcome.ESCAPED) {
+                s[1]++;
+                s[2] += result.turns;
+            }
+            else if (!"-".equals(result.reason)) {
+                s[5]++;
+            }
+            else if (result.outcome == Outcome.CAUGHT) {
+                s[3]++;
+            }
+            else {
+                s[4]++;
+            }
+            s[6] += result.nanos;
+        }
+        List<Map.Entry<String, long[]>> ranking = new ArrayList<>(stats.entrySet());
+        ranking.sort((a, b) -> {
+            int byEscapes = Long.compare(b.getValue()[1], a.getValue()[1]);
+            return byEscapes != 0 ? byEscapes : Double.compare(meanTurns(a.getValue()), meanTurns(b.getValue()));
+        });
+        out.printf("%-4s %-20s %7s %7s %9s %7s %7s %8s %9s%n",
+                "rank", "agent", "games", "escaped", "avg_turns", "caught", "turns", "failures", "ms/game");
+        int rank = 1;
+        for (Map.Entry<String, long[]> entry : ranking) {
+            long[] s = entry.getValue();
+            String avgTurns = s[1] == 0 ? "-" : String.format("%.1f", meanTurns(s));
+            out.printf("%-4d %-20s %7d %7d %9s %7d %7d %8d %9.2f%n", rank++, entry.getKey(), s[0], s[1],
+                    avgTurns, s[3], s[4], s[5], s[0] == 0 ? 0 : s[6] / 1e6 / s[0]);
+        }
+    }
+
+    private static double meanTurns(long[] s) {
+        return s[1] == 0 ? Double.POSITIVE_INFINITY : (double) s[2] / s[1];
+    }
+}